@@ -0,0 +1,21 @@
+package com.example.demo.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+
+    // @Async tasks run on the auto-configured applicationTaskExecutor (virtual threads when
+    // spring.threads.virtual.enabled=true). SecurityContextHolder stays in the default
+    // thread-local mode, so the caller's context is copied into the task explicitly
+    // and cleared again when it finishes; inheritable mode would leak it between pooled/virtual threads.
+    @Bean
+    public TaskDecorator securityContextTaskDecorator() {
+        return DelegatingSecurityContextRunnable::new;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.demo.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+
+// cache advice wraps the transaction advice, so @CacheEvict runs after the commit
+// and a concurrent read cannot re-cache a value that is about to change
+@Configuration
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
+public class CacheConfig {
+
+    // UserDetails by email, read on every authenticated request
+    public static final String USER_DETAILS = "userDetails";
+    // User entities by email (UserRepository.findByEmail)
+    public static final String USERS_BY_EMAIL = "usersByEmail";
+    // note count per user id (users.note_count)
+    public static final String NOTE_COUNTS = "noteCounts";
+
+    @Value("${app.cache.users.max-size:10000}")
+    private long usersMaxSize;
+
+    @Value("${app.cache.users.expire-after-write:PT5M}")
+    private Duration usersExpireAfterWrite;
+
+    @Value("${app.cache.note-counts.max-size:10000}")
+    private long noteCountsMaxSize;
+
+    @Value("${app.cache.note-counts.expire-after-write:PT10M}")
+    private Duration noteCountsExpireAfterWrite;
+
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+
+        // recordStats feeds hit rate and load time into the actuator cache metrics
+        cacheManager.registerCustomCache(USER_DETAILS, cache(usersMaxSize, usersExpireAfterWrite).build());
+        cacheManager.registerCustomCache(USERS_BY_EMAIL, cache(usersMaxSize, usersExpireAfterWrite).build());
+        cacheManager.registerCustomCache(NOTE_COUNTS, cache(noteCountsMaxSize, noteCountsExpireAfterWrite).build());
+        return cacheManager;
+    }
+
+    private static Caffeine<Object, Object> cache(long maxSize, Duration expireAfterWrite) {
+        return Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats();
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.demo.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// background maintenance jobs (@Scheduled), e.g. the expired refresh token purge
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,7 +1,15 @@
 package com.example.demo.config;
 
+import com.example.demo.security.BoundedPasswordEncoder;
 import com.example.demo.security.CustomUserDetailsService;
 import com.example.demo.security.JwtAuthenticationFilter;
+import com.example.demo.security.PasswordEncoders;
+import com.example.demo.security.PasswordHashingExecutor;
+import com.example.demo.security.RateLimitFilter;
+import com.example.demo.security.UserRateLimitFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -12,11 +20,12 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.authentication.AuthenticationProvider; 
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.http.SessionCreationPolicy;
-//  BCrypt NoOp
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.AndRequestMatcher;
+
+import static org.springframework.security.web.util.matcher.AntPathRequestMatcher.antMatcher;
 
 @Configuration
 @EnableWebSecurity
@@ -24,12 +33,38 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final RateLimitFilter rateLimitFilter;
+    private final UserRateLimitFilter userRateLimitFilter;
     private final CustomUserDetailsService userDetailsService;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final String passwordAlgorithm;
+    private final PasswordEncoders.Settings passwordSettings;
+    // -1 when actuator shares the application port
+    private final int managementPort;
+    private final MeterRegistry meterRegistry;
 
     public SecurityConfig(JwtAuthenticationFilter jwtAuthenticationFilter, // ** 
-                          CustomUserDetailsService userDetailsService) {
+                          RateLimitFilter rateLimitFilter,
+                          UserRateLimitFilter userRateLimitFilter,
+                          CustomUserDetailsService userDetailsService,
+                          PasswordHashingExecutor passwordHashingExecutor,
+                          @Value("${security.password.algorithm:bcrypt}") String passwordAlgorithm,
+                          @Value("${security.password.bcrypt.strength:12}") int bcryptStrength,
+                          @Value("${security.password.argon2.memory:19456}") int argon2MemoryKib,
+                          @Value("${security.password.argon2.iterations:2}") int argon2Iterations,
+                          @Value("${security.password.pbkdf2.iterations:310000}") int pbkdf2Iterations,
+                          @Value("${management.server.port:-1}") int managementPort,
+                          MeterRegistry meterRegistry) {
         this.jwtAuthenticationFilter = jwtAuthenticationFilter;
+        this.rateLimitFilter = rateLimitFilter;
+        this.userRateLimitFilter = userRateLimitFilter;
         this.userDetailsService = userDetailsService;
+        this.passwordHashingExecutor = passwordHashingExecutor;
+        this.passwordAlgorithm = passwordAlgorithm;
+        this.passwordSettings = new PasswordEncoders.Settings(
+                bcryptStrength, argon2MemoryKib, argon2Iterations, pbkdf2Iterations);
+        this.managementPort = managementPort;
+        this.meterRegistry = meterRegistry;
     }
 
     @Bean
@@ -37,6 +72,8 @@ public class SecurityConfig {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
         authProvider.setPasswordEncoder(passwordEncoder());
+        // outdated hashes are re-hashed with the current algorithm/cost after a successful login
+        authProvider.setUserDetailsPasswordService(userDetailsService);
         return authProvider;
     }
 
@@ -59,22 +96,35 @@ public class SecurityConfig {
             )
 
             .authorizeHttpRequests(auth -> auth
+                // streamed responses finish in an async dispatch, the original request was already authorized
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 .requestMatchers("/api/auth/**", "/api/login", "/api/users", "/api/refreshtoken", "/api/logout").permitAll()
                 .requestMatchers("/api/hello").permitAll()
+                // Prometheus scrapes without a token only on the management port (bound to an internal
+                // address by management.server.address); on the application port it needs ADMIN like the rest
+                .requestMatchers(new AndRequestMatcher(antMatcher("/actuator/prometheus"),
+                        request -> request.getLocalPort() == managementPort)).permitAll()
+                .requestMatchers("/actuator/**").hasRole("ADMIN")
                 .anyRequest().authenticated()
             )
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authenticationProvider(authenticationProvider())
-            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+            // client IP limits before the JWT filter, so a flood never gets to token verification;
+            // the per-user limit after it, once the user is known, still before authorization and controllers
+            .addFilterBefore(rateLimitFilter, JwtAuthenticationFilter.class)
+            .addFilterAfter(userRateLimitFilter, JwtAuthenticationFilter.class);
 
         return http.build();
     }
 
-    // (BCrypt strength 12)
+    // {id}-prefixed hashes with configurable algorithm and per-algorithm parameters (default BCrypt strength 12),
+    // hashing runs on its own bounded pool and fails fast with 429 when saturated
     @Bean
     public PasswordEncoder passwordEncoder() {
         
-        return new BCryptPasswordEncoder(12);
+        return new BoundedPasswordEncoder(PasswordEncoders.delegating(passwordAlgorithm, passwordSettings), passwordHashingExecutor,
+                meterRegistry);
     }
 
     @Bean
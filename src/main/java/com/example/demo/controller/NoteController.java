@@ -1,18 +1,35 @@
 package com.example.demo.controller;
 
-import com.example.demo.model.Note;
-import com.example.demo.model.User;
+import com.example.demo.dto.NoteBatchItem;
+import com.example.demo.dto.NoteChangesResponse;
+import com.example.demo.dto.NoteEvent;
+import com.example.demo.dto.NoteResponse;
 import com.example.demo.repository.NoteRepository;
+import com.example.demo.repository.NoteSearchRepository;
 import com.example.demo.repository.UserRepository;
+import com.example.demo.security.AuditLog;
+import com.example.demo.security.CustomUserDetailsService;
+import com.example.demo.service.NoteEventBus;
+import com.example.demo.service.NoteService;
 // 1. Додані імпорти для логування
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/notes")
@@ -21,73 +38,190 @@ public class NoteController {
     // 2. Створення логера
     private static final Logger logger = LoggerFactory.getLogger(NoteController.class);
 
+    // id of the last note in a full page, pass it back as ?after= to get the next page
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    // offset of the next page of search results (ranked results have no stable id cursor)
+    static final String NEXT_OFFSET_HEADER = "X-Next-Offset";
+    static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final NoteRepository noteRepository;
+    private final NoteService noteService;
+    private final NoteSearchRepository noteSearchRepository;
     private final UserRepository userRepository;
+    private final NoteEventBus noteEventBus;
+    private final AuditLog auditLog;
+
+    @Value("${notes.page.default-size:100}")
+    private int defaultPageSize;
+
+    @Value("${notes.page.max-size:500}")
+    private int maxPageSize;
 
-    public NoteController(NoteRepository noteRepository, UserRepository userRepository) {
+    public NoteController(NoteRepository noteRepository, NoteService noteService,
+                          NoteSearchRepository noteSearchRepository, UserRepository userRepository,
+                          NoteEventBus noteEventBus, AuditLog auditLog) {
         this.noteRepository = noteRepository;
+        this.noteService = noteService;
+        this.noteSearchRepository = noteSearchRepository;
         this.userRepository = userRepository;
+        this.noteEventBus = noteEventBus;
+        this.auditLog = auditLog;
     }
 
     // 1. create note
     @PostMapping
-    public Note createNote(@RequestBody Map<String, String> body) {
+    public NoteResponse createNote(@RequestBody Map<String, String> body) {
         String email = SecurityContextHolder.getContext().getAuthentication().getName();
-        
-        User currentUser = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
 
         String content = body.get("content");
 
-        Note note = new Note(content, currentUser);
-        
-        // Зберігаємо змінну, щоб залогувати ID
-        Note savedNote = noteRepository.save(note);
+        // Зберігаємо змінну, щоб залогувати ID (note_count is updated in the same transaction)
+        NoteResponse savedNote = noteService.createNote(currentUserId(), content);
+        noteEventBus.publish(currentUserId(), NoteEvent.created(savedNote));
         
-        // LOG INFO: Успішне створення
-        logger.info("User '{}' created a new note with ID: {}", email, savedNote.getId());
+        // LOG DEBUG: Успішне створення
+        logger.debug("User '{}' created a new note with ID: {}", email, savedNote.getId());
         
         return savedNote;
     }
 
-    // all notes
+    // batch create/update/delete for sync clients, each batch is one transaction
+    @PostMapping("/batch")
+    public List<NoteResponse> createNotes(@RequestBody List<NoteBatchItem> items) {
+        List<NoteResponse> created = noteService.createNotes(currentUserId(), items);
+        noteEventBus.publish(currentUserId(), created.stream().map(NoteEvent::created).toList());
+        logger.debug("User ID {} created {} notes in a batch", currentUserId(), created.size());
+        return created;
+    }
+
+    @PutMapping("/batch")
+    public List<NoteResponse> updateNotes(@RequestBody List<NoteBatchItem> items) {
+        List<NoteResponse> updated = noteService.updateNotes(currentUserId(), items);
+        noteEventBus.publish(currentUserId(), updated.stream().map(NoteEvent::updated).toList());
+        logger.debug("User ID {} updated {} notes in a batch", currentUserId(), updated.size());
+        return updated;
+    }
+
+    @DeleteMapping("/batch")
+    public ResponseEntity<?> deleteNotes(@RequestBody List<Long> ids) {
+        int deleted = noteService.deleteNotes(currentUserId(), ids);
+        // all-or-nothing, so every requested id is gone now
+        noteEventBus.publish(currentUserId(), ids.stream().distinct().map(NoteEvent::deleted).toList());
+        logger.debug("User ID {} deleted {} notes in a batch", currentUserId(), deleted);
+        return ResponseEntity.ok(Map.of("deleted", deleted));
+    }
+
+    // notes page by page (keyset on id)
+    // ETag = the user's note revision, read before the rows: a change in between only makes the ETag older
+    // than the page (one extra download later), never newer
     @GetMapping
-    public List<Note> getMyNotes() {
-        String email = SecurityContextHolder.getContext().getAuthentication().getName();
-        return noteRepository.findByUserEmail(email);
+    public ResponseEntity<List<NoteResponse>> getMyNotes(@RequestParam(required = false) Long after,
+                                                         @RequestParam(required = false) Integer limit,
+                                                         @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Integer userId = currentUserId();
+        String etag = collectionEtag(userId, userRepository.findNoteRevisionById(userId).orElse(0L));
+        if (etagMatches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
+        int pageSize = (limit == null || limit <= 0) ? defaultPageSize : Math.min(limit, maxPageSize);
+        List<NoteResponse> notes = noteRepository.findPageByUserId(
+                userId, after == null ? 0L : after, Limit.of(pageSize));
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate());
+        if (notes.size() == pageSize) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(notes.get(notes.size() - 1).getId()));
+        }
+        return response.body(notes);
+    }
+
+    // full-text search in my notes, best match first (FTS index, no scan of the notes table)
+    @GetMapping("/search")
+    public ResponseEntity<List<NoteResponse>> searchMyNotes(@RequestParam String q,
+                                                            @RequestParam(required = false) Integer limit,
+                                                            @RequestParam(required = false) Integer offset) {
+        int pageSize = (limit == null || limit <= 0) ? defaultPageSize : Math.min(limit, maxPageSize);
+        int start = (offset == null || offset < 0) ? 0 : offset;
+        List<NoteResponse> notes = noteSearchRepository.search(currentUserId(), q, pageSize, start);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (notes.size() == pageSize) {
+            response.header(NEXT_OFFSET_HEADER, String.valueOf(start + pageSize));
+        }
+        return response.body(notes);
+    }
+
+    // delta sync: notes created/updated and ids deleted after ?since= (the cursor of the previous call,
+    // 0 or absent for a full sync); hasMore = call again with the new cursor right away
+    @GetMapping("/changes")
+    public NoteChangesResponse getMyNoteChanges(@RequestParam(required = false) Long since) {
+        return noteService.getChanges(currentUserId(), since == null || since < 0 ? 0L : since);
+    }
+
+    // push channel: created/updated/deleted events of my notes from all my devices (text/event-stream).
+    // On "resync" or after a reconnect, catch up with GET /changes, events missed meanwhile are not replayed
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamMyNoteChanges() {
+        return noteEventBus.subscribe(currentUserId());
+    }
+
+    // all notes in one response, streamed as NDJSON instead of being built in memory
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportMyNotes() {
+        Integer userId = currentUserId();
+
+        StreamingResponseBody body = out -> noteService.writeNotesAsNdjson(userId, out);
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
     }
 
     // count my notes
     @GetMapping("/count")
     public int getMyNotesCount() {
-        String email = SecurityContextHolder.getContext().getAuthentication().getName();
-        // call SQL метод
-        return noteRepository.countNotesByUserEmail(email);
+        // maintained counter (users.note_count), no scan of notes
+        return noteService.countNotes(currentUserId());
+    }
+
+    // consistency check: rebuild every counter from the notes table
+    @PostMapping("/count/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> rebuildNoteCounts() {
+        int corrected = noteService.rebuildNoteCounts();
+        logger.info("Note counters rebuilt, {} user(s) corrected", corrected);
+        return ResponseEntity.ok(Map.of("correctedUsers", corrected));
     }
 
     // 3. updute note (PUT)
+    // with If-Match: "<version>" the update only applies to that version, otherwise 412 (lost update prevented)
     @PutMapping("/{id}")
-    public ResponseEntity<?> updateNote(@PathVariable Long id, @RequestBody Map<String, String> body) {
+    public ResponseEntity<?> updateNote(@PathVariable Long id, @RequestBody Map<String, String> body,
+                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         String email = SecurityContextHolder.getContext().getAuthentication().getName();
-        
-        Note note = noteRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Note not found"));
-
-        if (!note.getUser().getEmail().equals(email)) {
-            // LOG WARN: Спроба несанкціонованої зміни
-            logger.warn("SECURITY ALERT: User '{}' tried to MODIFY Note ID {} owned by '{}'", 
-                email, id, note.getUser().getEmail());
-                
-            return ResponseEntity.status(403).body("Access denied: You do not own this note");
+        Integer userId = currentUserId();
+        String content = body.get("content");
+
+        Long expectedVersion = null;
+        if (ifMatch != null && !ifMatch.trim().equals("*")) {
+            expectedVersion = parseVersion(ifMatch);
+            if (expectedVersion == null) {
+                return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body("If-Match must be a note ETag");
+            }
         }
 
-        note.setContent(body.get("content"));
-        noteRepository.save(note);
+        // one UPDATE ... WHERE id = ? AND user_id = ? [AND version = ?], the note is not loaded first
+        Long version = noteService.updateNote(id, userId, content, expectedVersion);
+        if (version == null) {
+            return rejectMutation(userId, id, "MODIFY", expectedVersion != null);
+        }
         
-        // LOG INFO: Успішне оновлення
-        logger.info("User '{}' updated Note ID {}", email, id);
+        NoteResponse updated = new NoteResponse(id, content, userId, version);
+        noteEventBus.publish(userId, NoteEvent.updated(updated));
+
+        // LOG DEBUG: Успішне оновлення
+        logger.debug("User '{}' updated Note ID {}", email, id);
         
-        return ResponseEntity.ok(note);
+        return ResponseEntity.ok().eTag(noteEtag(version)).body(updated);
     }
 
     // 4. note (DELETE)
@@ -96,51 +230,118 @@ public class NoteController {
         String email = SecurityContextHolder.getContext().getAuthentication().getName(); 
         //I get the current user's email from the SecurityContext authenticated via JWT**
 
-        Note note = noteRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Note not found"));
-                // fetch the note by its id**
-
-        if (!note.getUser().getEmail().equals(email)) { // check if the note belongs to the current user**
-            
-            // LOG WARN: Спроба несанкціонованого видалення
-            logger.warn("SECURITY ALERT: User '{}' tried to DELETE Note ID {} owned by '{}'", 
-                email, id, note.getUser().getEmail());
-            
-            return ResponseEntity.status(403).body("Access denied: You do not own this note");
+        // one DELETE ... WHERE id = ? AND user_id = ? (ownership check is part of the statement)**
+        if (!noteService.deleteNote(id, currentUserId())) {
+            return rejectMutation(currentUserId(), id, "DELETE", false);
         }
-
-        noteRepository.delete(note);
+        noteEventBus.publish(currentUserId(), NoteEvent.deleted(id));
         
-        // LOG INFO: Успішне видалення
-        logger.info("User '{}' deleted Note ID {}", email, id);
+        // LOG DEBUG: Успішне видалення
+        logger.debug("User '{}' deleted Note ID {}", email, id);
         
         return ResponseEntity.ok("Note deleted successfully");
     }
+
+    // runs only when a mutation matched no row: 404 if the note does not exist, 403 if it is someone else's,
+    // 412 if it is the user's own note but no longer at the If-Match version
+    private ResponseEntity<?> rejectMutation(Integer userId, Long id, String action, boolean versioned) {
+        Optional<Integer> ownerId = noteRepository.findOwnerIdById(id);
+        if (ownerId.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        if (versioned && ownerId.get().equals(userId)) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                    .body("Note was changed by another request, reload it and retry");
+        }
+
+        // AUDIT: Спроба несанкціонованої зміни/видалення
+        auditLog.accessDenied(userId, action, id, ownerId.get());
+
+        return ResponseEntity.status(403).body("Access denied: You do not own this note");
+    }
+
     // 5. GET SINGLE NOTE 
     @GetMapping("/{id}")
-    public ResponseEntity<?> getNoteById(@PathVariable Long id) {
-        String email = SecurityContextHolder.getContext().getAuthentication().getName();
+    public ResponseEntity<?> getNoteById(@PathVariable Long id,
+                                         @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // revalidation: only the version of an owned note is read, content stays on disk
+        if (ifNoneMatch != null) {
+            Optional<Long> version = noteRepository.findVersionByIdAndUserId(id, currentUserId());
+            if (version.isPresent() && etagMatches(ifNoneMatch, noteEtag(version.get()))) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(noteEtag(version.get())).build();
+            }
+        }
 
-        // 1. Шукаємо нотатку
-        var noteOptional = noteRepository.findById(id);
+        // 1. Шукаємо нотатку (id, content, user_id only)
+        var noteOptional = noteRepository.findResponseById(id);
 
         if (noteOptional.isEmpty()) {
             return ResponseEntity.notFound().build(); // 404 якщо нотатки взагалі немає
         }
 
-        Note note = noteOptional.get();
+        NoteResponse note = noteOptional.get();
 
         // 2. ПЕРЕВІРКА ВЛАСНИКА 
-        if (!note.getUser().getEmail().equals(email)) {
+        if (!note.getUserId().equals(currentUserId())) {
             
-            // LOG WARN: Спроба несанкціонованого доступу (читання)
-            logger.warn("SECURITY ALERT: User '{}' tried to ACCESS Note ID {} owned by '{}'", 
-                email, id, note.getUser().getEmail());
+            // AUDIT: Спроба несанкціонованого доступу (читання)
+            auditLog.accessDenied(currentUserId(), "ACCESS", id, note.getUserId());
             
             //  403 Forbidden
             return ResponseEntity.status(403).body("Access denied: You do not own this note");
         }
 
-        return ResponseEntity.ok(note);
+        return ResponseEntity.ok()
+                .eTag(noteEtag(note.getVersion()))
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(note);
+    }
+
+    private static String noteEtag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    private static String collectionEtag(Integer userId, long revision) {
+        return "\"" + userId + "-" + revision + "\"";
+    }
+
+    // If-None-Match may list several ETags, "*" or weak ones (W/"..."), weak comparison is enough for GET
+    private static boolean etagMatches(String header, String etag) {
+        if (header == null) {
+            return false;
+        }
+        for (String candidate : header.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*")) {
+                return true;
+            }
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // "<version>" from If-Match, null when it is not a note ETag
+    private static Long parseVersion(String ifMatch) {
+        String value = ifMatch.trim();
+        if (value.length() < 3 || !value.startsWith("\"") || !value.endsWith("\"")) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.substring(1, value.length() - 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // id of the authenticated user, taken from the principal set by JwtAuthenticationFilter
+    private Integer currentUserId() {
+        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        return ((CustomUserDetailsService.CustomUserDetails) principal).getId();
     }
 }
\ No newline at end of file
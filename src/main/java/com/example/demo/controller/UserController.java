@@ -1,12 +1,17 @@
 package com.example.demo.controller;
 
 import com.example.demo.dto.*;
-import com.example.demo.model.RefreshToken;
+import com.example.demo.exception.TooManyRequestsException;
 import com.example.demo.model.User;
+import com.example.demo.security.AuditLog;
 import com.example.demo.security.CustomUserDetailsService;
+import com.example.demo.security.JwtAuthenticationFilter;
 import com.example.demo.security.JwtUtil;
+import com.example.demo.security.TokenRevocationList;
+import com.example.demo.service.NoteEventBus;
 import com.example.demo.service.RefreshTokenService;
 import com.example.demo.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,6 +35,9 @@ public class UserController {
     private final JwtUtil jwtUtil;
     private final CustomUserDetailsService userDetailsService;
     private final RefreshTokenService refreshTokenService;
+    private final TokenRevocationList tokenRevocationList;
+    private final AuditLog auditLog;
+    private final NoteEventBus noteEventBus;
     
     //Secure Logging (SLF4J)
     private static final Logger logger = LoggerFactory.getLogger(UserController.class);
@@ -38,12 +46,18 @@ public class UserController {
                           AuthenticationManager authenticationManager,
                           JwtUtil jwtUtil,
                           CustomUserDetailsService userDetailsService,
-                          RefreshTokenService refreshTokenService) {
+                          RefreshTokenService refreshTokenService,
+                          TokenRevocationList tokenRevocationList,
+                          AuditLog auditLog,
+                          NoteEventBus noteEventBus) {
         this.userService = userService;
         this.authenticationManager = authenticationManager;
         this.jwtUtil = jwtUtil;
         this.userDetailsService = userDetailsService;
         this.refreshTokenService = refreshTokenService;
+        this.tokenRevocationList = tokenRevocationList;
+        this.auditLog = auditLog;
+        this.noteEventBus = noteEventBus;
     }
 
     
@@ -63,7 +77,7 @@ public class UserController {
 
     // but login with logging
     @PostMapping("/login")
-    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest request) {
+    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest request, HttpServletRequest httpRequest) {
         try {
             // authenticate user
             Authentication authentication = authenticationManager.authenticate(
@@ -76,20 +90,22 @@ public class UserController {
             // generate access token
             String accessToken = jwtUtil.generateToken(userDetails);
 
-            // 2. generate refresh token & save to DB
+            // 2. generate refresh token & save its hash to DB (replaces the user's previous token)
             Integer userId = ((CustomUserDetailsService.CustomUserDetails) userDetails).getId();
-            refreshTokenService.deleteByUserId(userId);
-            RefreshToken refreshToken = refreshTokenService.createRefreshToken(request.getEmail());
+            String refreshToken = refreshTokenService.issueRefreshToken(userId, userDetails.getUsername());
 
-            // log successful login without logging
-            logger.info("Successful login for user: {}", request.getEmail());
+            // audit successful login (user id only)
+            auditLog.loginSucceeded(userId, httpRequest.getRemoteAddr());
 
-            return ResponseEntity.ok(new JwtResponse(accessToken, refreshToken.getToken()));
+            return ResponseEntity.ok(new JwtResponse(accessToken, refreshToken));
 
+        } catch (TooManyRequestsException e) {
+            // hashing pool is saturated, that is not a wrong password: 429 via GlobalExceptionHandler
+            throw e;
         } catch (Exception e) {
             // (failed login attempt)
             // Ми логуємо хто хотів увійти ане не пишемо пароль, який він ввів
-            logger.warn("Failed login attempt for user: {}", request.getEmail());
+            auditLog.loginFailed(request.getEmail(), httpRequest.getRemoteAddr());
             
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid credentials");
         }
@@ -98,36 +114,39 @@ public class UserController {
     // (Refresh & Rotate)
     @PostMapping("/refreshtoken")
     public ResponseEntity<?> refreshtoken(@Valid @RequestBody TokenRefreshRequest request) {
-        String requestRefreshToken = request.getRefreshToken();
-
-        return refreshTokenService.findByToken(requestRefreshToken)
-                .map(refreshTokenService::verifyExpiration)
-                .map(RefreshToken::getUser)
-                .map(user -> {
-                    //rotate refresh token
-                    refreshTokenService.deleteByUserId(user.getId());
-                    
-                    String newAccessToken = jwtUtil.generateToken(userDetailsService.loadUserByUsername(user.getEmail()));
-                    RefreshToken newRefreshToken = refreshTokenService.createRefreshToken(user.getEmail());
-                    
-                    logger.debug("Token refreshed successfully for user: {}", user.getEmail());
-                    
-                    return ResponseEntity.ok(new TokenRefreshResponse(newAccessToken, newRefreshToken.getToken()));
-                })
-                .orElseThrow(() -> new RuntimeException("Refresh token is not in database!"));
+        //rotate refresh token (one UPDATE, unknown/used/expired tokens throw -> 400)
+        RefreshTokenService.RotatedToken rotated = refreshTokenService.rotate(request.getRefreshToken());
+        String email = rotated.getOwner().getEmail();
+
+        String newAccessToken = jwtUtil.generateToken(userDetailsService.loadUserByUsername(email));
+
+        logger.debug("Token refreshed successfully for user: {}", email);
+
+        return ResponseEntity.ok(new TokenRefreshResponse(newAccessToken, rotated.getToken()));
     }
 
     //logout
     @PostMapping("/logout")
-    public ResponseEntity<?> logoutUser() {
-        UserDetails userDetails = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        Integer userId = ((CustomUserDetailsService.CustomUserDetails) userDetails).getId();
+    public ResponseEntity<?> logoutUser(HttpServletRequest request) {
+        // the endpoint is open, so without a valid (not yet revoked) token there is nobody to log out
+        String token = JwtAuthenticationFilter.bearerToken(request);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (token == null || authentication == null
+                || !(authentication.getPrincipal() instanceof CustomUserDetailsService.CustomUserDetails userDetails)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Not logged in");
+        }
+        Integer userId = userDetails.getId();
         
         // DELETE REFRESH TOKEN FROM DB
         refreshTokenService.deleteByUserId(userId);
+        // the access token stops working now instead of at its expiry (the filter already verified it)
+        tokenRevocationList.revoke(jwtUtil.extractClaims(token));
+        userDetailsService.evict(userDetails.getUsername());
+        // open note streams were authorized by a token that no longer works
+        noteEventBus.disconnect(userId);
         
-        // log logout event
-        logger.info("User ID: {} logged out successfully", userId);
+        // audit logout event
+        auditLog.logout(userId);
         
         return ResponseEntity.ok("Log out successful!");
     }
@@ -148,7 +167,13 @@ public class UserController {
     @DeleteMapping("/users/{id}")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> deleteUser(@PathVariable Integer id) { 
+        // issued access tokens are revoked first, so no request of the user gets past the filter meanwhile;
+        // the user's rows go in one write unit (404 if there is no such user), then cached details and note streams
+        tokenRevocationList.revokeUser(id);
+        User deleted = userService.deleteUser(id);
+        userDetailsService.evict(deleted.getEmail());
+        noteEventBus.disconnect(id);
         logger.info("Admin deleted user with ID: {}", id);
-        return ResponseEntity.ok("User deleted (Simulation)");
+        return ResponseEntity.ok("User deleted");
     }
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.example.demo.dto;
+
+// one element of a /api/notes/batch request, id is ignored on create
+public class NoteBatchItem {
+
+    private Long id;
+    private String content;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+}
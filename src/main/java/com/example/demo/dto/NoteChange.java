@@ -0,0 +1,26 @@
+package com.example.demo.dto;
+
+// created or updated note in GET /api/notes/changes, version is the ETag for a later If-Match
+public class NoteChange {
+
+    private Long id;
+    private String content;
+    private Integer userId;
+    private Long version;
+    private long revision;
+
+    // JPQL constructor projection
+    public NoteChange(Long id, String content, Integer userId, Long version, long revision) {
+        this.id = id;
+        this.content = content;
+        this.userId = userId;
+        this.version = version;
+        this.revision = revision;
+    }
+
+    public Long getId() { return id; }
+    public String getContent() { return content; }
+    public Integer getUserId() { return userId; }
+    public Long getVersion() { return version; }
+    public long getRevision() { return revision; }
+}
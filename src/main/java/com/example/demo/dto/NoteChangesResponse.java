@@ -0,0 +1,24 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+// delta since the client's cursor: pass cursor back as ?since= next time, hasMore = call again right away
+public class NoteChangesResponse {
+
+    private List<NoteChange> changed;
+    private List<Long> deleted;
+    private long cursor;
+    private boolean hasMore;
+
+    public NoteChangesResponse(List<NoteChange> changed, List<Long> deleted, long cursor, boolean hasMore) {
+        this.changed = changed;
+        this.deleted = deleted;
+        this.cursor = cursor;
+        this.hasMore = hasMore;
+    }
+
+    public List<NoteChange> getChanged() { return changed; }
+    public List<Long> getDeleted() { return deleted; }
+    public long getCursor() { return cursor; }
+    public boolean isHasMore() { return hasMore; }
+}
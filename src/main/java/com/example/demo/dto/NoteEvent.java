@@ -0,0 +1,41 @@
+package com.example.demo.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// note change pushed over GET /api/notes/stream, the type is sent as the SSE event name
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class NoteEvent {
+
+    public static final String CREATED = "created";
+    public static final String UPDATED = "updated";
+    public static final String DELETED = "deleted";
+
+    @JsonIgnore
+    private final String type;
+    private final Long id;
+    // null for deletes
+    private final String content;
+
+    private NoteEvent(String type, Long id, String content) {
+        this.type = type;
+        this.id = id;
+        this.content = content;
+    }
+
+    public static NoteEvent created(NoteResponse note) {
+        return new NoteEvent(CREATED, note.getId(), note.getContent());
+    }
+
+    public static NoteEvent updated(NoteResponse note) {
+        return new NoteEvent(UPDATED, note.getId(), note.getContent());
+    }
+
+    public static NoteEvent deleted(Long id) {
+        return new NoteEvent(DELETED, id, null);
+    }
+
+    public String getType() { return type; }
+    public Long getId() { return id; }
+    public String getContent() { return content; }
+}
@@ -0,0 +1,31 @@
+package com.example.demo.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+public class NoteResponse {
+
+    private Long id;
+    private String content;
+    private Integer userId;
+
+    // sent as the ETag header, not in the body; null when the query did not select it
+    @JsonIgnore
+    private Long version;
+
+    // also used as a JPQL constructor projection, so the owning User is never loaded
+    public NoteResponse(Long id, String content, Integer userId) {
+        this.id = id;
+        this.content = content;
+        this.userId = userId;
+    }
+
+    public NoteResponse(Long id, String content, Integer userId, Long version) {
+        this(id, content, userId);
+        this.version = version;
+    }
+
+    public Long getId() { return id; }
+    public String getContent() { return content; }
+    public Integer getUserId() { return userId; }
+    public Long getVersion() { return version; }
+}
@@ -0,0 +1,21 @@
+package com.example.demo.dto;
+
+import java.time.Instant;
+
+// owner of a refresh token: JPQL projection and the value kept in the refresh token hot set
+public class RefreshTokenOwner {
+
+    private final Integer userId;
+    private final String email;
+    private final Instant expiryDate;
+
+    public RefreshTokenOwner(Integer userId, String email, Instant expiryDate) {
+        this.userId = userId;
+        this.email = email;
+        this.expiryDate = expiryDate;
+    }
+
+    public Integer getUserId() { return userId; }
+    public String getEmail() { return email; }
+    public Instant getExpiryDate() { return expiryDate; }
+}
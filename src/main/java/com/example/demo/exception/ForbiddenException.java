@@ -0,0 +1,9 @@
+package com.example.demo.exception;
+
+// mapped to 403 Forbidden by GlobalExceptionHandler
+public class ForbiddenException extends RuntimeException {
+
+    public ForbiddenException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.demo.exception;
+
+// mapped to 404 Not Found by GlobalExceptionHandler
+public class NotFoundException extends RuntimeException {
+
+    public NotFoundException(String message) {
+        super(message);
+    }
+}
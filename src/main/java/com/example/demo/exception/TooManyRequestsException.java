@@ -0,0 +1,16 @@
+package com.example.demo.exception;
+
+// mapped to 429 Too Many Requests (with Retry-After) by GlobalExceptionHandler
+public class TooManyRequestsException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.demo.model;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// pre-insert ids handed out in blocks (see BlockIdGenerator), unlike IDENTITY it keeps insert batching on
+@IdGeneratorType(BlockIdGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface BlockId {
+
+    // table whose id column is generated
+    String table();
+
+    // sequence used on databases that have sequences, must increment by allocationSize
+    String sequence();
+
+    int allocationSize() default 50;
+
+    // "table.column" holding ids of deleted rows (e.g. tombstones), part of the SQLite high-water mark,
+    // so ids of deleted rows at the top of the table are not handed out again after a restart
+    String[] retiredIds() default {};
+}
@@ -0,0 +1,87 @@
+package com.example.demo.model;
+
+import org.hibernate.HibernateException;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands out ids from blocks of {@link BlockId#allocationSize()}.
+ * With a database sequence one nextval reserves a whole block. SQLite has no sequences and the file is
+ * written by this process only, so there the block is reserved in memory above the highest id ever used:
+ * the highest id in the table or among the retired ids of deleted rows (ids are never reused, like AUTOINCREMENT).
+ * The lookup runs on the current connection: a separate transaction (as the table-backed sequence
+ * emulation uses) would wait on SQLite's single write lock held by the caller.
+ */
+public class BlockIdGenerator implements IdentifierGenerator {
+
+    private final String highWaterMarkQuery;
+    private final String sequence;
+    private final int allocationSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private long nextId = 1;
+    private long blockEnd = 0;
+
+    public BlockIdGenerator(BlockId config) {
+        this.highWaterMarkQuery = highWaterMarkQuery(config);
+        this.sequence = config.sequence();
+        this.allocationSize = config.allocationSize();
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        lock.lock();
+        try {
+            if (nextId > blockEnd) {
+                reserveBlock(session);
+            }
+            return nextId++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void reserveBlock(SharedSessionContractImplementor session) {
+        Dialect dialect = session.getJdbcServices().getDialect();
+
+        long end;
+        if (dialect.getSequenceSupport().supportsSequences()) {
+            end = queryLong(session, dialect.getSequenceSupport().getSequenceNextValString(sequence));
+        } else {
+            long maxId = queryLong(session, highWaterMarkQuery);
+            end = Math.max(maxId, blockEnd) + allocationSize;
+        }
+
+        nextId = end - allocationSize + 1;
+        blockEnd = end;
+    }
+
+    private static String highWaterMarkQuery(BlockId config) {
+        StringBuilder query = new StringBuilder("SELECT MAX(id) FROM (SELECT COALESCE(MAX(id), 0) AS id FROM ")
+                .append(config.table());
+        for (String retired : config.retiredIds()) {
+            int dot = retired.indexOf('.');
+            query.append(" UNION ALL SELECT COALESCE(MAX(").append(retired.substring(dot + 1)).append("), 0) FROM ")
+                    .append(retired, 0, dot);
+        }
+        return query.append(")").toString();
+    }
+
+    private static long queryLong(SharedSessionContractImplementor session, String sql) {
+        Connection connection = session.getJdbcCoordinator().getLogicalConnection().getPhysicalConnection();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        } catch (SQLException e) {
+            throw new HibernateException("Could not reserve an id block with: " + sql, e);
+        }
+    }
+}
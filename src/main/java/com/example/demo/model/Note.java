@@ -1,22 +1,38 @@
 package com.example.demo.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
-@Table(name = "notes")
+@Table(name = "notes", indexes = {
+        @Index(name = "idx_notes_user_id_id", columnList = "user_id, id"),
+        @Index(name = "idx_notes_user_id_revision", columnList = "user_id, revision")
+})
 public class Note {
 
+    // ids assigned before insert, 50 at a time, so Hibernate can batch the inserts (IDENTITY cannot)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @BlockId(table = "notes", sequence = "notes_seq", allocationSize = 50, retiredIds = "note_tombstones.note_id")
     private Long id;
 
     private String content;
 
-    
-    @ManyToOne
+    // lazy: reads go through NoteResponse projections and never need the owner entity
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false) //* 
     private User user;
 
+    // optimistic lock and per-note ETag, incremented on every content change
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private Long version;
+
+    // users.note_revision of the last create/update, the delta sync cursor (GET /api/notes/changes)
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private long revision;
+
     public Note() {
     }
 
@@ -45,4 +61,16 @@ public class Note {
     public void setUser(User user) {
         this.user = user;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public long getRevision() {
+        return revision;
+    }
+
+    public void setRevision(long revision) {
+        this.revision = revision;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,51 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+// marker of a deleted note for GET /api/notes/changes, written in the same transaction as the delete
+@Entity
+@Table(name = "note_tombstones",
+       indexes = @Index(name = "idx_note_tombstones_user_id_revision", columnList = "user_id, revision"))
+public class NoteTombstone implements Persistable<Long> {
+
+    @Id
+    @Column(name = "note_id")
+    private Long noteId;
+
+    @Column(name = "user_id", nullable = false)
+    private Integer userId;
+
+    // users.note_revision of the delete
+    @Column(nullable = false)
+    private long revision;
+
+    public NoteTombstone() {
+    }
+
+    public NoteTombstone(Long noteId, Integer userId, long revision) {
+        this.noteId = noteId;
+        this.userId = userId;
+        this.revision = revision;
+    }
+
+    @Override
+    public Long getId() {
+        return noteId;
+    }
+
+    // note ids are never reused (BlockIdGenerator counts tombstones in its high-water mark),
+    // so a tombstone is always new: persist (batched insert) instead of merge
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public long getRevision() {
+        return revision;
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.demo.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
@@ -22,7 +23,17 @@ public class User {
     @JsonIgnore 
     private String password;
 
-    
+    // maintained only through UserRepository.adjustNoteCount, never written from the entity
+    @Column(name = "note_count", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    @JsonIgnore
+    private int noteCount;
+
+    // bumped on every note create/update/delete of the user, the ETag of their note list
+    @Column(name = "note_revision", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    @JsonIgnore
+    private long noteRevision;
 
     public User() {
     }
@@ -64,4 +75,12 @@ public class User {
     public void setPassword(String password) {
         this.password = password;
     }
+
+    public int getNoteCount() {
+        return noteCount;
+    }
+
+    public long getNoteRevision() {
+        return noteRevision;
+    }
 }
\ No newline at end of file
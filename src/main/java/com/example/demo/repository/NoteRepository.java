@@ -1,19 +1,84 @@
 package com.example.demo.repository;
 
+import com.example.demo.dto.NoteChange;
+import com.example.demo.dto.NoteResponse;
 import com.example.demo.model.Note;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface NoteRepository extends JpaRepository<Note, Long> {
     
-    // method JPA (generate SQL automatically)
-    List<Note> findByUserEmail(String email); // *
-
-    // Raw SQL Query 
-     
-    @Query(value = "SELECT COUNT(*) FROM notes n JOIN users u ON n.user_id = u.id WHERE u.email = :email", nativeQuery = true)
-    int countNotesByUserEmail(@Param("email") String email);
-}
\ No newline at end of file
+    // projections below select only id, content and user_id, no Note/User entities are built
+    // per-user queries filter on notes.user_id (idx_notes_user_id_id) and never join users
+    // read-only transactions are served by the SQLite read pool (SqliteDataSourceConfig)
+
+    // single note for the read endpoint
+    @Query("SELECT new com.example.demo.dto.NoteResponse(n.id, n.content, n.user.id, n.version) FROM Note n WHERE n.id = :id")
+    @Transactional(readOnly = true)
+    Optional<NoteResponse> findResponseById(@Param("id") Long id);
+
+    // version of an owned note, enough to answer If-None-Match without reading the content
+    @Transactional(readOnly = true)
+    @Query("SELECT n.version FROM Note n WHERE n.id = :id AND n.user.id = :userId")
+    Optional<Long> findVersionByIdAndUserId(@Param("id") Long id, @Param("userId") Integer userId);
+
+    // owner of a note, only needed to tell 404 from 403 after a mutation matched no row
+    @Query("SELECT n.user.id FROM Note n WHERE n.id = :id")
+    @Transactional(readOnly = true)
+    Optional<Integer> findOwnerIdById(@Param("id") Long id);
+
+    // ownership-checked single-statement mutations, return the affected row count (0 or 1)
+    // bulk updates bypass @Version, so the version is incremented explicitly
+    @Modifying
+    @Query("UPDATE Note n SET n.content = :content, n.version = n.version + 1, n.revision = :revision " +
+           "WHERE n.id = :id AND n.user.id = :userId")
+    int updateContentByIdAndUserId(@Param("id") Long id, @Param("userId") Integer userId,
+                                   @Param("content") String content, @Param("revision") long revision);
+
+    // If-Match: also matches no row when the note changed since the client read that version
+    @Modifying
+    @Query("UPDATE Note n SET n.content = :content, n.version = n.version + 1, n.revision = :revision " +
+           "WHERE n.id = :id AND n.user.id = :userId AND n.version = :version")
+    int updateContentByIdAndUserIdAndVersion(@Param("id") Long id, @Param("userId") Integer userId,
+                                             @Param("content") String content, @Param("version") Long version,
+                                             @Param("revision") long revision);
+
+    @Modifying
+    @Query("DELETE FROM Note n WHERE n.id = :id AND n.user.id = :userId")
+    int deleteByIdAndUserId(@Param("id") Long id, @Param("userId") Integer userId);
+
+    // account deletion: one statement, the notes are not loaded first
+    @Modifying
+    @Query("DELETE FROM Note n WHERE n.user.id = :userId")
+    int deleteByUserId(@Param("userId") Integer userId);
+
+    // keyset page: next notes after the given id, so the cost does not grow with the offset
+    @Query("SELECT new com.example.demo.dto.NoteResponse(n.id, n.content, n.user.id) FROM Note n " +
+           "WHERE n.user.id = :userId AND n.id > :afterId ORDER BY n.id")
+    @Transactional(readOnly = true)
+    List<NoteResponse> findPageByUserId(@Param("userId") Integer userId, @Param("afterId") Long afterId, Limit limit);
+
+    // notes created/updated within (since, until] in change order (idx_notes_user_id_revision)
+    @Transactional(readOnly = true)
+    @Query("SELECT new com.example.demo.dto.NoteChange(n.id, n.content, n.user.id, n.version, n.revision) FROM Note n " +
+           "WHERE n.user.id = :userId AND n.revision > :since AND n.revision <= :until ORDER BY n.revision, n.id")
+    List<NoteChange> findChangesByUserId(@Param("userId") Integer userId, @Param("since") long since,
+                                         @Param("until") long until, Limit limit);
+
+    // all notes as a cursor-backed stream, must be consumed inside a transaction and closed
+    @Query("SELECT new com.example.demo.dto.NoteResponse(n.id, n.content, n.user.id) FROM Note n " +
+           "WHERE n.user.id = :userId ORDER BY n.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<NoteResponse> streamByUserId(@Param("userId") Integer userId);
+}
@@ -0,0 +1,109 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.NoteResponse;
+import com.example.demo.model.Note;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.query.NativeQuery;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Ranked full-text search over the user's notes.
+ * SQLite: FTS5 table notes_fts (bm25), Postgres: notes.content_tsv GIN index (ts_rank), see V6 migrations.
+ * Every query word must match, the last one also as a prefix (search as you type).
+ */
+@Repository
+public class NoteSearchRepository {
+
+    // user_id column gets no weight, it only narrows the match to the user's notes
+    private static final String SQLITE_SEARCH =
+            "SELECT n.id, n.content, n.user_id FROM notes_fts JOIN notes n ON n.id = notes_fts.rowid " +
+            "WHERE notes_fts MATCH :query " +
+            "ORDER BY bm25(notes_fts, 1.0, 0.0), n.id LIMIT :limit OFFSET :offset";
+
+    private static final String POSTGRES_SEARCH =
+            "SELECT id, content, user_id FROM notes " +
+            "WHERE user_id = :userId AND content_tsv @@ to_tsquery('simple', :query) " +
+            "ORDER BY ts_rank(content_tsv, to_tsquery('simple', :query)) DESC, id LIMIT :limit OFFSET :offset";
+
+    private static final int MAX_TERMS = 10;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final boolean postgres;
+
+    public NoteSearchRepository(EntityManagerFactory entityManagerFactory) {
+        this.postgres = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect() instanceof PostgreSQLDialect;
+    }
+
+    @Transactional(readOnly = true)
+    @SuppressWarnings("unchecked")
+    public List<NoteResponse> search(Integer userId, String text, int limit, int offset) {
+        List<String> terms = terms(text);
+        if (terms.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        NativeQuery<Object[]> query = entityManager
+                .createNativeQuery(postgres ? POSTGRES_SEARCH : SQLITE_SEARCH)
+                .unwrap(NativeQuery.class);
+        // pending note inserts/updates of this transaction are flushed before the search runs
+        query.addSynchronizedEntityClass(Note.class);
+
+        if (postgres) {
+            query.setParameter("userId", userId);
+            query.setParameter("query", tsQuery(terms));
+        } else {
+            query.setParameter("query", ftsQuery(userId, terms));
+        }
+        query.setParameter("limit", limit);
+        query.setParameter("offset", offset);
+
+        return query.getResultList().stream()
+                .map(row -> new NoteResponse(((Number) row[0]).longValue(), (String) row[1],
+                        ((Number) row[2]).intValue()))
+                .toList();
+    }
+
+    // letters and digits only, the same split the FTS tokenizer makes, so no query syntax reaches MATCH
+    private static List<String> terms(String text) {
+        if (text == null) {
+            return Collections.emptyList();
+        }
+        return Arrays.stream(text.toLowerCase().split("[^\\p{L}\\p{N}]+"))
+                .filter(term -> !term.isEmpty())
+                .limit(MAX_TERMS)
+                .toList();
+    }
+
+    // user_id : "42" AND content : "first" AND content : "sec" *
+    private static String ftsQuery(Integer userId, List<String> terms) {
+        StringBuilder match = new StringBuilder("user_id : \"").append(userId).append('"');
+        for (int i = 0; i < terms.size(); i++) {
+            match.append(" AND content : \"").append(terms.get(i)).append('"');
+            if (i == terms.size() - 1) {
+                match.append(" *");
+            }
+        }
+        return match.toString();
+    }
+
+    // first & sec:*
+    private static String tsQuery(List<String> terms) {
+        String words = terms.subList(0, terms.size() - 1).stream()
+                .map(term -> term + " & ")
+                .collect(Collectors.joining());
+        return words + terms.get(terms.size() - 1) + ":*";
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.NoteTombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public interface NoteTombstoneRepository extends JpaRepository<NoteTombstone, Long> {
+
+    // ids deleted within (since, until] (idx_note_tombstones_user_id_revision)
+    @Transactional(readOnly = true)
+    @Query("SELECT t.noteId FROM NoteTombstone t WHERE t.userId = :userId " +
+           "AND t.revision > :since AND t.revision <= :until ORDER BY t.revision, t.noteId")
+    List<Long> findDeletedIds(@Param("userId") Integer userId, @Param("since") long since, @Param("until") long until);
+
+    // account deletion: nobody is left to sync the user's deletes
+    @Modifying
+    @Query("DELETE FROM NoteTombstone t WHERE t.userId = :userId")
+    int deleteByUserId(@Param("userId") Integer userId);
+}
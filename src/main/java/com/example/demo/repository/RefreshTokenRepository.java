@@ -1,20 +1,55 @@
 package com.example.demo.repository;
 
+import com.example.demo.dto.RefreshTokenOwner;
 import com.example.demo.model.RefreshToken;
-import com.example.demo.model.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
-    
-    // find token by token string
-    Optional<RefreshToken> findByToken(String token);
-
-    // for deleting tokens by user if user logs out
-    @Modifying
-    void deleteByUser(User user);
-}
\ No newline at end of file
+
+    // unique index on token_hash, owner id and email come from the join, no entities are loaded
+    @Query("SELECT new com.example.demo.dto.RefreshTokenOwner(u.id, u.email, t.expiryDate) " +
+           "FROM RefreshToken t JOIN t.user u WHERE t.tokenHash = :tokenHash")
+    @Transactional(readOnly = true)
+    Optional<RefreshTokenOwner> findOwnerByTokenHash(@Param("tokenHash") String tokenHash);
+
+    // rotation in one statement: matches no row if the token was already rotated, revoked or has expired
+    // bulk statements bypass the persistence context: flush pending inserts first and clear afterwards,
+    // so a deleted token never stays managed (SQLite may hand its rowid to the next token)
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE RefreshToken t SET t.tokenHash = :newHash, t.expiryDate = :expiryDate " +
+           "WHERE t.tokenHash = :oldHash AND t.expiryDate > :now")
+    int rotate(@Param("oldHash") String oldHash, @Param("newHash") String newHash,
+               @Param("expiryDate") Instant expiryDate, @Param("now") Instant now);
+
+    // login/logout: one statement, the tokens are not loaded first
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("DELETE FROM RefreshToken t WHERE t.user.id = :userId")
+    int deleteByUserId(@Param("userId") Integer userId);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("DELETE FROM RefreshToken t WHERE t.tokenHash = :tokenHash")
+    int deleteByTokenHash(@Param("tokenHash") String tokenHash);
+
+    // expired tokens, oldest first (idx_refresh_tokens_expiry_date), purged in batches
+    @Query("SELECT t.id FROM RefreshToken t WHERE t.expiryDate <= :now ORDER BY t.expiryDate")
+    @Transactional(readOnly = true)
+    List<Long> findExpiredIds(@Param("now") Instant now, Limit limit);
+
+    // expiry is checked again: a token rotated after the ids were read is kept
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Transactional
+    @Query("DELETE FROM RefreshToken t WHERE t.id IN :ids AND t.expiryDate <= :now")
+    int deleteExpiredByIds(@Param("ids") Collection<Long> ids, @Param("now") Instant now);
+}
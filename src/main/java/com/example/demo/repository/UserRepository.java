@@ -1,13 +1,50 @@
 package com.example.demo.repository;
 
+import com.example.demo.config.CacheConfig;
 import com.example.demo.model.User;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Integer> {
 
+    // cached, evicted by CustomUserDetailsService.evict when the user changes
+    @Cacheable(cacheNames = CacheConfig.USERS_BY_EMAIL, key = "#p0", sync = true)
+    @Transactional(readOnly = true)
     Optional<User> findByEmail(String email);
+
+    // password re-hash on login, callers evict the cached user afterwards
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.email = :email")
+    int updatePasswordByEmail(@Param("email") String email, @Param("password") String password);
+
+    // denormalized note counter (users.note_count), reads one row instead of scanning notes
+    @Query("SELECT u.noteCount FROM User u WHERE u.id = :id")
+    @Transactional(readOnly = true)
+    Optional<Integer> findNoteCountById(@Param("id") Integer id);
+
+    // must run in the same transaction as the note change it accounts for: moves the counter by delta
+    // (0 for content updates) and bumps note_revision; the row lock also orders concurrent changes of one user
+    @Modifying
+    @Query(value = "UPDATE users SET note_count = note_count + :delta, note_revision = note_revision + 1 WHERE id = :id",
+           nativeQuery = true)
+    int adjustNoteCount(@Param("id") Integer id, @Param("delta") int delta);
+
+    // ETag of the user's note list, one row instead of the notes themselves
+    @Query("SELECT u.noteRevision FROM User u WHERE u.id = :id")
+    @Transactional(readOnly = true)
+    Optional<Long> findNoteRevisionById(@Param("id") Integer id);
+
+    // consistency check: recount from notes, touches only the users whose counter drifted
+    @Modifying
+    @Query(value = "UPDATE users SET note_count = (SELECT COUNT(*) FROM notes WHERE notes.user_id = users.id) " +
+                   "WHERE note_count <> (SELECT COUNT(*) FROM notes WHERE notes.user_id = users.id)", nativeQuery = true)
+    int rebuildNoteCounts();
 }
 
 
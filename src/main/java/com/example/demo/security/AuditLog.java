@@ -0,0 +1,70 @@
+package com.example.demo.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+/**
+ * Security audit trail: logins, logouts and attempts to touch someone else's notes.
+ * Written to the "audit" logger, which logback-spring.xml routes to its own JSON file (one object per line,
+ * the key/value pairs below become fields) through an async appender, never to the application log.
+ * Events carry ids rather than emails, except a failed login where no user id is known.
+ */
+@Component
+public class AuditLog {
+
+    private static final Logger audit = LoggerFactory.getLogger("audit");
+
+    public void loginSucceeded(Integer userId, String clientIp) {
+        audit.atInfo()
+                .setMessage("login")
+                .addKeyValue("event", "login")
+                .addKeyValue("outcome", "success")
+                .addKeyValue("userId", userId)
+                .addKeyValue("clientIp", clientIp)
+                .log();
+    }
+
+    public void loginFailed(String email, String clientIp) {
+        audit.atWarn()
+                .setMessage("login")
+                .addKeyValue("event", "login")
+                .addKeyValue("outcome", "failure")
+                .addKeyValue("email", email)
+                .addKeyValue("clientIp", clientIp)
+                .log();
+    }
+
+    public void logout(Integer userId) {
+        audit.atInfo()
+                .setMessage("logout")
+                .addKeyValue("event", "logout")
+                .addKeyValue("userId", userId)
+                .log();
+    }
+
+    // action: ACCESS, MODIFY or DELETE
+    public void accessDenied(Integer userId, String action, Long noteId, Integer ownerId) {
+        audit.atWarn()
+                .setMessage("access_denied")
+                .addKeyValue("event", "access_denied")
+                .addKeyValue("userId", userId)
+                .addKeyValue("action", action)
+                .addKeyValue("noteId", noteId)
+                .addKeyValue("ownerId", ownerId)
+                .log();
+    }
+
+    // batch update/delete with notes of other users, the whole batch was rejected
+    public void batchAccessDenied(Integer userId, Collection<Long> noteIds) {
+        audit.atWarn()
+                .setMessage("access_denied")
+                .addKeyValue("event", "access_denied")
+                .addKeyValue("userId", userId)
+                .addKeyValue("action", "BATCH")
+                .addKeyValue("noteIds", noteIds)
+                .log();
+    }
+}
@@ -1,27 +1,36 @@
 package com.example.demo.security;
 
+import com.example.demo.config.CacheConfig;
 import com.example.demo.model.User;
 import com.example.demo.repository.UserRepository;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collection;
 import java.util.Collections;
 
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
+    private final CacheManager cacheManager;
 
-    public CustomUserDetailsService(UserRepository userRepository) {
+    public CustomUserDetailsService(UserRepository userRepository, CacheManager cacheManager) {
         this.userRepository = userRepository;
+        this.cacheManager = cacheManager;
     }
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.USER_DETAILS, key = "#p0", sync = true)
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         // search user by email from db
         User user = userRepository.findByEmail(email)
@@ -31,6 +40,31 @@ public class CustomUserDetailsService implements UserDetailsService {
         return new CustomUserDetails(user);
     }
 
+    // called by DaoAuthenticationProvider after a successful login when the stored hash is outdated
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository.updatePasswordByEmail(user.getUsername(), newPassword);
+        // cached details still carry the old hash
+        evict(user.getUsername());
+
+        CustomUserDetails details = (CustomUserDetails) user;
+        return new CustomUserDetails(details.getId(), details.getUsername(), newPassword, details.getAuthorities());
+    }
+
+    // drop cached user data after the user changed, logged out or was deleted
+    public void evict(String email) {
+        evictFrom(CacheConfig.USER_DETAILS, email);
+        evictFrom(CacheConfig.USERS_BY_EMAIL, email);
+    }
+
+    private void evictFrom(String cacheName, String email) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.evict(email);
+        }
+    }
+
     // inside class
     // realization of UserDetails interface but with ID field
     public static class CustomUserDetails implements UserDetails {
@@ -50,6 +84,19 @@ public class CustomUserDetailsService implements UserDetailsService {
             this.authorities = Collections.singletonList(new SimpleGrantedAuthority(role));
         }
 
+        // stateless principal restored from JWT claims, it never carries the password hash
+        public CustomUserDetails(Integer id, String username, Collection<? extends GrantedAuthority> authorities) {
+            this.id = id;
+            this.username = username;
+            this.authorities = authorities;
+        }
+
+        public CustomUserDetails(Integer id, String username, String password,
+                                 Collection<? extends GrantedAuthority> authorities) {
+            this(id, username, authorities);
+            this.password = password;
+        }
+
         // getter for id 
         public Integer getId() {
             return id;
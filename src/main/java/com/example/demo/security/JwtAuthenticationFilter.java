@@ -1,9 +1,15 @@
 package com.example.demo.security;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -13,36 +19,75 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final UserDetailsService userDetailsService;
+    private final TokenRevocationList revocationList;
 
-    public JwtAuthenticationFilter(JwtUtil jwtUtil, UserDetailsService userDetailsService) {
+    // stateless mode: principal comes from the token claims, users table is read only on login/refresh
+    private final boolean statelessPrincipal;
+
+    // security.jwt.verification: parse + signature check (cache miss) + revocation check, by outcome
+    private final Timer validTimer;
+    private final Timer revokedTimer;
+    private final Timer expiredTimer;
+    private final Timer invalidTimer;
+
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, UserDetailsService userDetailsService,
+                                   TokenRevocationList revocationList,
+                                   @Value("${jwt.stateless-principal:false}") boolean statelessPrincipal,
+                                   MeterRegistry registry) {
         this.jwtUtil = jwtUtil;
         this.userDetailsService = userDetailsService;
+        this.revocationList = revocationList;
+        this.statelessPrincipal = statelessPrincipal;
+        this.validTimer = verificationTimer(registry, "valid");
+        this.revokedTimer = verificationTimer(registry, "revoked");
+        this.expiredTimer = verificationTimer(registry, "expired");
+        this.invalidTimer = verificationTimer(registry, "invalid");
     }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
             throws ServletException, IOException {
 
-        String authHeader = request.getHeader("Authorization");
-
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+        String token = bearerToken(request);
+        if (token == null) {
             chain.doFilter(request, response);
             return;
         }
 
-        String token = authHeader.substring(7);
-        String username = jwtUtil.extractUsername(token);
+        // one hash + cache lookup per request, the claims are passed to every check below
+        Claims claims;
+        boolean revoked;
+        long start = System.nanoTime();
+        try {
+            claims = jwtUtil.extractClaims(token);
+            revoked = revocationList.isRevoked(claims);
+        } catch (ExpiredJwtException e) {
+            record(expiredTimer, start);
+            throw e;
+        } catch (RuntimeException e) {
+            record(invalidTimer, start);
+            throw e;
+        }
+        record(revoked ? revokedTimer : validTimer, start);
+
+        // revoked (logout, deleted user): the request goes on unauthenticated, like one without a token
+        String username = claims.getSubject();
+        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null && !revoked) {
+            UserDetails userDetails = statelessPrincipal ? jwtUtil.extractUserDetails(claims) : null;
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            // tokens issued before the user id claim existed still go through the database
+            if (userDetails == null) {
+                userDetails = userDetailsService.loadUserByUsername(username);
+            }
 
-            if (jwtUtil.isValidToken(token, userDetails)) {
+            if (jwtUtil.isValidToken(claims, userDetails)) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities());
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -53,4 +98,24 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         chain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    // token of the "Authorization: Bearer <token>" header, null when the request has none
+    public static String bearerToken(HttpServletRequest request) {
+        String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return null;
+        }
+        return authHeader.substring(7);
+    }
+
+    private static void record(Timer timer, long start) {
+        timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private static Timer verificationTimer(MeterRegistry registry, String outcome) {
+        return Timer.builder("security.jwt.verification")
+                .description("Bearer token checks in JwtAuthenticationFilter")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
@@ -1,40 +1,82 @@
 package com.example.demo.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
-import org.springframework.beans.factory.annotation.Value; 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Component
-public class JwtUtil {
+public class JwtUtil implements MeterBinder {
 
-    // jwt from application.properties
-    @Value("${jwt.secret}")
-    private String secret;
+    // issue time in epoch millis, the standard iat claim is whole seconds (TokenRevocationList)
+    public static final String ISSUED_AT_MILLIS = "iat_ms";
 
-    @Value("${jwt.expiration}")
-    private long expirationTime;
+    private final long expirationTime;
 
-    // method to get signing key
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    // key and parser are immutable and thread-safe, so they are built once at startup
+    private final SecretKey signingKey;
+    private final JwtParser jwtParser;
+
+    // verified claims keyed by token hash, an entry lives until its token expires
+    private final Cache<String, Claims> claimsCache;
+
+    // jwt settings from application.properties
+    public JwtUtil(@Value("${jwt.secret}") String secret,
+                   @Value("${jwt.expiration}") long expirationTime,
+                   @Value("${jwt.cache.max-size:10000}") long cacheMaxSize) {
+        this.expirationTime = expirationTime;
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.jwtParser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+        this.claimsCache = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new TokenExpiry())
+                .recordStats()
+                .build();
     }
 
     public String generateToken(UserDetails userDetails) {
+        // user id lets the filter rebuild the principal without a users lookup
+        Integer userId = userDetails instanceof CustomUserDetailsService.CustomUserDetails custom
+                ? custom.getId() : null;
+        Date issuedAt = new Date();
+
         return Jwts.builder()
+                // token id, lets a single token be revoked before it expires (TokenRevocationList)
+                .id(UUID.randomUUID().toString())
                 .subject(userDetails.getUsername())
+                .claim("uid", userId)
                 .claim("roles", userDetails.getAuthorities().stream()
                         .map(a -> a.getAuthority()).collect(Collectors.toList()))
-                .issuedAt(new Date())
-                .expiration(new Date(System.currentTimeMillis() + expirationTime)) // Используем переменную
-                .signWith(getSigningKey())
+                .issuedAt(issuedAt)
+                .claim(ISSUED_AT_MILLIS, issuedAt.getTime())
+                .expiration(new Date(issuedAt.getTime() + expirationTime)) // Используем переменную
+                .signWith(signingKey)
                 .compact();
     }
 
@@ -43,19 +85,93 @@ public class JwtUtil {
     }
 
     public boolean isValidToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        return isValidToken(getClaims(token), userDetails);
+    }
+
+    // for claims already looked up in this request, no second hash + cache lookup
+    public boolean isValidToken(Claims claims, UserDetails userDetails) {
+        return claims.getSubject().equals(userDetails.getUsername()) && !isTokenExpired(claims);
+    }
+
+    // principal built from the token claims only, null for tokens issued without a user id
+    public CustomUserDetailsService.CustomUserDetails extractUserDetails(String token) {
+        return extractUserDetails(getClaims(token));
+    }
+
+    public CustomUserDetailsService.CustomUserDetails extractUserDetails(Claims claims) {
+        Integer userId = claims.get("uid", Integer.class);
+        if (userId == null) {
+            return null;
+        }
+
+        List<?> roles = claims.get("roles", List.class);
+        List<GrantedAuthority> authorities = roles == null
+                ? Collections.emptyList()
+                : roles.stream()
+                        .map(role -> (GrantedAuthority) new SimpleGrantedAuthority(String.valueOf(role)))
+                        .toList();
+
+        return new CustomUserDetailsService.CustomUserDetails(userId, claims.getSubject(), authorities);
+    }
+
+    // verified claims (from the cache after the first call), throws for an invalid token
+    public Claims extractClaims(String token) {
+        return getClaims(token);
+    }
+
+    // hit/miss counters of the verified token cache
+    public CacheStats getCacheStats() {
+        return claimsCache.stats();
     }
 
+    // publishes the verified token cache stats next to the other cache metrics
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, claimsCache, "jwtClaims");
+    }
+
+    // signature is checked only on a cache miss, invalid tokens throw and are never cached
     private Claims getClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
+        return claimsCache.get(hash(token), key -> jwtParser
                 .parseSignedClaims(token)
-                .getPayload();
+                .getPayload());
+    }
+
+    private static boolean isTokenExpired(Claims claims) {
+        return claims.getExpiration().before(new Date());
+    }
+
+    // fixed-width key, so the cache does not keep whole tokens in memory
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] bytes = digest.digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
 
-    private boolean isTokenExpired(String token) {
-        return getClaims(token).getExpiration().before(new Date());
+    // evict cached claims exactly when the token itself expires
+    private class TokenExpiry implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            Date expiration = claims.getExpiration();
+            long ttlMillis = expiration != null
+                    ? expiration.getTime() - System.currentTimeMillis()
+                    : expirationTime;
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, ttlMillis));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,89 @@
+package com.example.demo.security;
+
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Builds the application password encoder: new hashes use the configured algorithm and its parameters,
+ * older hashes ({id} prefixed, or legacy unprefixed BCrypt) still verify and are reported
+ * by upgradeEncoding, so DaoAuthenticationProvider re-hashes them after a successful login.
+ *
+ * Every algorithm has its own parameters (Settings), so switching the algorithm never reuses a cost
+ * meant for another one:
+ *   bcrypt - strength, log2 rounds (12 = 4096 rounds)
+ *   argon2 - memory in KiB and iterations (parallelism 1)
+ *   pbkdf2 - iterations of PBKDF2WithHmacSHA256, not stored in the hash: existing pbkdf2 hashes are verified
+ *            with the configured count, so it must not change while pbkdf2 hashes exist
+ */
+public final class PasswordEncoders {
+
+    public static final String BCRYPT = "bcrypt";
+    public static final String ARGON2 = "argon2";
+    public static final String PBKDF2 = "pbkdf2";
+
+    private static final int SALT_LENGTH = 16;
+    private static final int ARGON2_HASH_LENGTH = 32;
+    private static final int ARGON2_PARALLELISM = 1;
+
+    private PasswordEncoders() {
+    }
+
+    // default parameters for every algorithm, cost applied to the given one only (benchmarks, tests)
+    public static DelegatingPasswordEncoder delegating(String algorithm, int cost) {
+        return delegating(algorithm, Settings.defaults().withCost(algorithm, cost));
+    }
+
+    public static DelegatingPasswordEncoder delegating(String algorithm, Settings settings) {
+        String target = algorithm.toLowerCase();
+
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        // encoders of the other algorithms only verify, bcrypt and argon2 read their parameters from the hash
+        encoders.put(BCRYPT, new BCryptPasswordEncoder());
+        encoders.put(ARGON2, Argon2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+        // pbkdf2 cannot, it verifies with the configured iteration count
+        encoders.put(PBKDF2, encoder(PBKDF2, settings));
+        encoders.put(target, encoder(target, settings));
+
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(target, encoders);
+        // hashes stored before the {id} prefix was introduced are plain BCrypt
+        delegating.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder());
+        return delegating;
+    }
+
+    public static PasswordEncoder encoder(String algorithm, Settings settings) {
+        return switch (algorithm.toLowerCase()) {
+            case BCRYPT -> new BCryptPasswordEncoder(settings.bcryptStrength());
+            case ARGON2 -> new Argon2PasswordEncoder(SALT_LENGTH, ARGON2_HASH_LENGTH,
+                    ARGON2_PARALLELISM, settings.argon2MemoryKib(), settings.argon2Iterations());
+            // pbkdf2 does not store the iteration count in the hash, changing it breaks existing pbkdf2 hashes
+            case PBKDF2 -> new Pbkdf2PasswordEncoder("", SALT_LENGTH, settings.pbkdf2Iterations(),
+                    Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256);
+            default -> throw new IllegalArgumentException("Unsupported password algorithm: " + algorithm);
+        };
+    }
+
+    // parameters per algorithm (security.password.bcrypt.*, .argon2.*, .pbkdf2.*)
+    public record Settings(int bcryptStrength, int argon2MemoryKib, int argon2Iterations, int pbkdf2Iterations) {
+
+        // BCrypt 12, Argon2id 19 MiB / 2 iterations and PBKDF2 310000 iterations (OWASP minimums)
+        public static Settings defaults() {
+            return new Settings(12, 19456, 2, 310000);
+        }
+
+        // the algorithm's main cost replaced: bcrypt strength, argon2 memory or pbkdf2 iterations
+        public Settings withCost(String algorithm, int cost) {
+            return switch (algorithm.toLowerCase()) {
+                case BCRYPT -> new Settings(cost, argon2MemoryKib, argon2Iterations, pbkdf2Iterations);
+                case ARGON2 -> new Settings(bcryptStrength, cost, argon2Iterations, pbkdf2Iterations);
+                case PBKDF2 -> new Settings(bcryptStrength, argon2MemoryKib, argon2Iterations, cost);
+                default -> throw new IllegalArgumentException("Unsupported password algorithm: " + algorithm);
+            };
+        }
+    }
+}
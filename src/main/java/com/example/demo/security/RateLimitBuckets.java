@@ -0,0 +1,94 @@
+package com.example.demo.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One rate limit (RateLimitFilter, UserRateLimitFilter): key -> time (System.nanoTime) at which that key's
+ * bucket is full again, the token bucket in its GCRA form. A bucket is a single AtomicLong updated with CAS,
+ * no locks and no allocation per request. Full buckets hold no information and are evicted by evictFull;
+ * past max-entries new keys share one overflow bucket instead of growing the map.
+ */
+final class RateLimitBuckets {
+
+    // one token per interval, capacity tokens of burst
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final int maxEntries;
+    private final ConcurrentHashMap<Object, AtomicLong> buckets = new ConcurrentHashMap<>();
+    // shared by new keys while the map is at max-entries
+    private final AtomicLong overflow = new AtomicLong(System.nanoTime());
+    private final Counter rejected;
+
+    RateLimitBuckets(String limit, long capacity, double refillPerSecond, int maxEntries, MeterRegistry registry) {
+        this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / refillPerSecond));
+        this.burstNanos = capacity * intervalNanos;
+        this.maxEntries = maxEntries;
+        this.rejected = Counter.builder("security.rate-limit.rejected")
+                .description("Requests rejected with 429 because a rate limit bucket was empty")
+                .tag("limit", limit)
+                .register(registry);
+        registry.gaugeMapSize("security.rate-limit.buckets", Tags.of("limit", limit), buckets);
+    }
+
+    // looks without taking: 0 when the key has a token left, otherwise the nanos until the next one
+    long check(Object key, long now) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = buckets.size() < maxEntries ? null : overflow;
+        }
+        // a key without a bucket is full
+        long waitNanos = bucket != null ? Math.max(0, next(bucket.get(), now) - now - burstNanos) : 0;
+        if (waitNanos > 0) {
+            rejected.increment();
+        }
+        return waitNanos;
+    }
+
+    // takes one token: 0 when there was one, otherwise the nanos until the next token
+    long tryAcquire(Object key, long now) {
+        AtomicLong bucket = bucket(key, now);
+        while (true) {
+            long fullAt = bucket.get();
+            long next = next(fullAt, now);
+            long waitNanos = next - now - burstNanos;
+            if (waitNanos > 0) {
+                rejected.increment();
+                return waitNanos;
+            }
+            if (bucket.compareAndSet(fullAt, next)) {
+                return 0;
+            }
+        }
+    }
+
+    // gives back a token taken by tryAcquire, for a request that another limit rejected after all
+    void release(Object key, long now) {
+        bucket(key, now).addAndGet(-intervalNanos);
+    }
+
+    // a request racing with the sweep may take its token from a removed full bucket: at most one extra token
+    void evictFull(long now) {
+        buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+    }
+
+    private AtomicLong bucket(Object key, long now) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = buckets.size() < maxEntries
+                    ? buckets.computeIfAbsent(key, k -> new AtomicLong(now))
+                    : overflow;
+        }
+        return bucket;
+    }
+
+    // when the bucket is full again after taking one more token from it
+    private long next(long fullAt, long now) {
+        return (fullAt - now > 0 ? fullAt : now) + intervalNanos;
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.demo.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token buckets per client IP, runs right before JwtAuthenticationFilter, so a flood is turned away
+ * before any token is parsed or verified. Two limits, each request has to pass all that apply:
+ * - ip: every request, keyed by client IP
+ * - credentials: login, registration and token refresh (BCrypt / database work), keyed by client IP
+ * Every applicable bucket is checked before a token is taken from any, so a request rejected by one limit
+ * does not use up the others. An empty bucket answers 429 with Retry-After before any controller,
+ * hashing or database work. The per-user limit needs the authenticated user: UserRateLimitFilter.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Set<String> CREDENTIAL_PATHS = Set.of("/api/login", "/api/users", "/api/refreshtoken");
+
+    private final boolean enabled;
+    private final RateLimitBuckets ipBuckets;
+    private final RateLimitBuckets credentialBuckets;
+
+    public RateLimitFilter(@Value("${security.rate-limit.enabled:false}") boolean enabled,
+                           @Value("${security.rate-limit.ip.capacity:200}") long ipCapacity,
+                           @Value("${security.rate-limit.ip.refill-per-second:100}") double ipRefill,
+                           @Value("${security.rate-limit.credentials.capacity:10}") long credentialsCapacity,
+                           @Value("${security.rate-limit.credentials.refill-per-second:0.5}") double credentialsRefill,
+                           @Value("${security.rate-limit.max-entries:100000}") int maxEntries,
+                           MeterRegistry registry) {
+        this.enabled = enabled;
+        this.ipBuckets = new RateLimitBuckets("ip", ipCapacity, ipRefill, maxEntries, registry);
+        this.credentialBuckets = new RateLimitBuckets("credentials", credentialsCapacity, credentialsRefill, maxEntries, registry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long now = System.nanoTime();
+        String clientIp = request.getRemoteAddr();
+        boolean credentials = isCredentialRequest(request);
+
+        long waitNanos = Math.max(ipBuckets.check(clientIp, now),
+                credentials ? credentialBuckets.check(clientIp, now) : 0);
+        if (waitNanos == 0) {
+            waitNanos = ipBuckets.tryAcquire(clientIp, now);
+        }
+        if (waitNanos == 0 && credentials) {
+            waitNanos = credentialBuckets.tryAcquire(clientIp, now);
+            if (waitNanos > 0) {
+                // a concurrent request took the last credentials token after the check
+                ipBuckets.release(clientIp, now);
+            }
+        }
+
+        if (waitNanos > 0) {
+            reject(response, waitNanos);
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    // drops buckets that have refilled completely, a new bucket for the same key would be identical
+    @Scheduled(fixedDelayString = "${security.rate-limit.sweep-interval:PT1M}",
+               initialDelayString = "${security.rate-limit.sweep-interval:PT1M}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        ipBuckets.evictFull(now);
+        credentialBuckets.evictFull(now);
+    }
+
+    // same body as the 429 from GlobalExceptionHandler, not logged: a flood would flood the log too
+    static void reject(HttpServletResponse response, long waitNanos) throws IOException {
+        long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"error\":\"Too many requests, retry later\"}");
+    }
+
+    private static boolean isCredentialRequest(HttpServletRequest request) {
+        return HttpMethod.POST.matches(request.getMethod())
+                && CREDENTIAL_PATHS.contains(request.getRequestURI().substring(request.getContextPath().length()));
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.demo.security;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Access tokens revoked before they expire (logout, user deleted by an admin), kept in memory only.
+ *
+ * Checked on every authenticated request: a Bloom filter answers "not revoked" for almost every token
+ * without locking or allocating; only a filter hit is confirmed against the exact set of token ids (jti).
+ * Ids are grouped in buckets by expiry time and dropped once their tokens have expired anyway,
+ * then the filter is rebuilt from the ids that are left.
+ * Tokens issued before jti existed, and all tokens of a deleted user, are revoked by a per-user
+ * "issued at or before" cutoff instead, kept until the longest-lived token issued before it has expired.
+ * The cutoff is in milliseconds (the iat_ms claim): the standard iat claim has whole seconds only,
+ * so a token issued right after the cutoff, in the same second, would be revoked with it.
+ */
+@Component
+public class TokenRevocationList {
+
+    private static final int HASHES = 7;
+    // ~1% false positives at the expected number of ids
+    private static final int BITS_PER_ID = 10;
+
+    private final int expectedIds;
+    private final long accessTokenMillis;
+    private final long bucketMillis;
+
+    // jti -> expiry (epoch millis)
+    private final Map<String, Long> revokedIds = new ConcurrentHashMap<>();
+    // bucket start (epoch millis) -> jtis expiring in that bucket
+    private final ConcurrentSkipListMap<Long, Set<String>> buckets = new ConcurrentSkipListMap<>();
+    // user id -> tokens issued at or before this instant (epoch millis) are revoked
+    private final Map<Integer, Long> revokedUsers = new ConcurrentHashMap<>();
+
+    private volatile BloomFilter filter;
+
+    public TokenRevocationList(@Value("${security.revocation.expected-tokens:100000}") int expectedIds,
+                               @Value("${jwt.expiration}") long accessTokenMillis,
+                               @Value("${security.revocation.sweep-interval:PT1M}") Duration sweepInterval,
+                               MeterRegistry registry) {
+        this.expectedIds = expectedIds;
+        this.accessTokenMillis = accessTokenMillis;
+        this.bucketMillis = sweepInterval.toMillis();
+        this.filter = new BloomFilter(expectedIds);
+        registry.gaugeMapSize("security.revoked.tokens", List.of(), revokedIds);
+    }
+
+    // hot path: O(1), no allocation unless the filter reports a hit
+    public boolean isRevoked(Claims claims) {
+        String jti = claims.getId();
+        if (jti != null && filter.mightContain(jti) && revokedIds.containsKey(jti)) {
+            return true;
+        }
+        if (revokedUsers.isEmpty()) {
+            return false;
+        }
+
+        Integer userId = claims.get("uid", Integer.class);
+        Long cutoff = userId != null ? revokedUsers.get(userId) : null;
+        return cutoff != null && issuedAtMillis(claims) <= cutoff;
+    }
+
+    // revokes the token these claims were read from
+    public void revoke(Claims claims) {
+        String jti = claims.getId();
+        Date expiration = claims.getExpiration();
+        if (jti == null || expiration == null) {
+            // no id to revoke it by: revoke everything the user was issued up to now
+            Integer userId = claims.get("uid", Integer.class);
+            if (userId != null) {
+                revokeUser(userId);
+            }
+            return;
+        }
+        revoke(jti, expiration.getTime());
+    }
+
+    // revokes every token issued to the user so far (tokens issued later stay valid)
+    public void revokeUser(Integer userId) {
+        revokedUsers.merge(userId, System.currentTimeMillis(), Math::max);
+    }
+
+    // writes are rare, the lock only keeps a revoke from slipping past a concurrent filter rebuild
+    synchronized void revoke(String jti, long expiresAtMillis) {
+        if (expiresAtMillis <= System.currentTimeMillis()) {
+            return;
+        }
+        revokedIds.put(jti, expiresAtMillis);
+        buckets.computeIfAbsent(expiresAtMillis / bucketMillis * bucketMillis, bucket -> ConcurrentHashMap.newKeySet())
+                .add(jti);
+        filter.put(jti);
+    }
+
+    // drops ids and user cutoffs whose tokens have all expired
+    @Scheduled(fixedDelayString = "${security.revocation.sweep-interval:PT1M}")
+    public synchronized void evictExpired() {
+        long now = System.currentTimeMillis();
+        boolean removed = false;
+
+        // a bucket is done when its last possible expiry has passed
+        Map<Long, Set<String>> expired = buckets.headMap(now - bucketMillis, true);
+        for (Set<String> ids : expired.values()) {
+            ids.forEach(revokedIds::remove);
+            removed = true;
+        }
+        expired.clear();
+
+        revokedUsers.values().removeIf(cutoff -> cutoff + accessTokenMillis < now);
+
+        // a Bloom filter cannot forget, so it is rebuilt from the ids still revoked
+        if (removed) {
+            BloomFilter rebuilt = new BloomFilter(Math.max(expectedIds, revokedIds.size()));
+            revokedIds.keySet().forEach(rebuilt::put);
+            filter = rebuilt;
+        }
+    }
+
+    public int size() {
+        return revokedIds.size();
+    }
+
+    // tokens issued without iat_ms fall back to the start of their iat second, so they are never let through
+    private static long issuedAtMillis(Claims claims) {
+        Long issuedAtMillis = claims.get(JwtUtil.ISSUED_AT_MILLIS, Long.class);
+        if (issuedAtMillis != null) {
+            return issuedAtMillis;
+        }
+        Date issuedAt = claims.getIssuedAt();
+        return issuedAt != null ? issuedAt.getTime() : Long.MIN_VALUE;
+    }
+
+    // lock-free bit set, k bit positions derived from two 64-bit hashes of the id (Kirsch-Mitzenmacher)
+    private static final class BloomFilter {
+
+        private final AtomicLongArray words;
+        private final long bitCount;
+
+        BloomFilter(int expectedIds) {
+            int wordCount = (int) Math.max(1, ((long) expectedIds * BITS_PER_ID + 63) / 64);
+            this.words = new AtomicLongArray(wordCount);
+            this.bitCount = (long) wordCount * 64;
+        }
+
+        void put(String id) {
+            long hash1 = hash(id);
+            long hash2 = mix(hash1);
+            for (int i = 0; i < HASHES; i++) {
+                long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+                long mask = 1L << bit;
+                words.getAndAccumulate((int) (bit >>> 6), mask, (word, m) -> word | m);
+            }
+        }
+
+        boolean mightContain(String id) {
+            long hash1 = hash(id);
+            long hash2 = mix(hash1);
+            for (int i = 0; i < HASHES; i++) {
+                long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // FNV-1a over the chars, no byte[] copy of the string
+        private static long hash(String id) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < id.length(); i++) {
+                hash ^= id.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            return mix(hash);
+        }
+
+        // murmur3 finalizer
+        private static long mix(long value) {
+            value ^= value >>> 33;
+            value *= 0xff51afd7ed558ccdL;
+            value ^= value >>> 33;
+            value *= 0xc4ceb9fe1a85ec53L;
+            value ^= value >>> 33;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.demo.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Token bucket per authenticated user, runs right after JwtAuthenticationFilter (the client IP limits
+ * already ran before it, RateLimitFilter), so one user cannot starve the others from many addresses.
+ * Anonymous requests pass through. An empty bucket answers 429 with Retry-After before authorization
+ * and the controllers.
+ */
+@Component
+public class UserRateLimitFilter extends OncePerRequestFilter {
+
+    private final boolean enabled;
+    private final RateLimitBuckets userBuckets;
+
+    public UserRateLimitFilter(@Value("${security.rate-limit.enabled:false}") boolean enabled,
+                               @Value("${security.rate-limit.user.capacity:100}") long userCapacity,
+                               @Value("${security.rate-limit.user.refill-per-second:50}") double userRefill,
+                               @Value("${security.rate-limit.max-entries:100000}") int maxEntries,
+                               MeterRegistry registry) {
+        this.enabled = enabled;
+        this.userBuckets = new RateLimitBuckets("user", userCapacity, userRefill, maxEntries, registry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Object userKey = userKey();
+        if (userKey != null) {
+            long waitNanos = userBuckets.tryAcquire(userKey, System.nanoTime());
+            if (waitNanos > 0) {
+                RateLimitFilter.reject(response, waitNanos);
+                return;
+            }
+        }
+        chain.doFilter(request, response);
+    }
+
+    @Scheduled(fixedDelayString = "${security.rate-limit.sweep-interval:PT1M}",
+               initialDelayString = "${security.rate-limit.sweep-interval:PT1M}")
+    public void evictIdle() {
+        userBuckets.evictFull(System.nanoTime());
+    }
+
+    // set by JwtAuthenticationFilter, null for anonymous requests
+    private static Object userKey() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            return null;
+        }
+        return authentication.getPrincipal() instanceof CustomUserDetailsService.CustomUserDetails details
+                ? details.getId() : authentication.getName();
+    }
+}
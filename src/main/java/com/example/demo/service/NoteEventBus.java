@@ -0,0 +1,259 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.NoteEvent;
+import com.example.demo.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process fan-out of note changes to the open SSE connections of the same user (GET /api/notes/stream).
+ * A connection is an async servlet request, so an idle one holds no thread, only its emitter and a small buffer.
+ *
+ * publish() never blocks: each connection has a bounded buffer, drained by a small dispatcher pool.
+ * The buffer counts writes, not notes: a batch write is one entry however many notes it touched.
+ * A connection that falls a whole buffer behind is closed with a "resync" event; the client reconnects
+ * and catches up through GET /api/notes/changes, so a slow client cannot hold back the others.
+ * Heartbeats (SSE comments) keep proxies from dropping idle connections and detect dead ones.
+ */
+@Component
+public class NoteEventBus implements DisposableBean {
+
+    public static final String RESYNC = "resync";
+
+    private final ConcurrentHashMap<Integer, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+
+    private final int bufferSize;
+    private final int maxConnections;
+    private final int maxConnectionsPerUser;
+    private final long timeoutMillis;
+    private final ThreadPoolExecutor dispatcher;
+    private final ScheduledExecutorService heartbeat;
+    private final Counter overflows;
+
+    public NoteEventBus(@Value("${notes.stream.buffer-size:64}") int bufferSize,
+                        @Value("${notes.stream.max-connections:10000}") int maxConnections,
+                        @Value("${notes.stream.max-connections-per-user:8}") int maxConnectionsPerUser,
+                        @Value("${notes.stream.timeout:PT30M}") Duration timeout,
+                        @Value("${notes.stream.heartbeat:PT30S}") Duration heartbeatInterval,
+                        @Value("${notes.stream.dispatch-threads:2}") int dispatchThreads,
+                        MeterRegistry registry) {
+        this.bufferSize = bufferSize;
+        this.maxConnections = maxConnections;
+        this.maxConnectionsPerUser = maxConnectionsPerUser;
+        this.timeoutMillis = timeout.toMillis();
+
+        CustomizableThreadFactory dispatchThreadFactory = new CustomizableThreadFactory("note-events-");
+        dispatchThreadFactory.setDaemon(true);
+        // a connection is queued at most once at a time, so the task queue is bounded by the connection count
+        this.dispatcher = new ThreadPoolExecutor(dispatchThreads, dispatchThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), dispatchThreadFactory);
+
+        CustomizableThreadFactory heartbeatThreadFactory = new CustomizableThreadFactory("note-events-heartbeat-");
+        heartbeatThreadFactory.setDaemon(true);
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(heartbeatThreadFactory);
+        long period = heartbeatInterval.toMillis();
+        heartbeat.scheduleAtFixedRate(this::sendHeartbeats, period, period, TimeUnit.MILLISECONDS);
+
+        registry.gauge("notes.stream.connections", connections);
+        this.overflows = Counter.builder("notes.stream.overflows")
+                .description("Note streams closed because the client could not keep up")
+                .register(registry);
+    }
+
+    // 429 when the server-wide or the per-user connection limit is reached
+    public SseEmitter subscribe(Integer userId) {
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            throw new TooManyRequestsException("Too many open note streams, try again later", 5);
+        }
+
+        Subscriber subscriber = new Subscriber(userId, createEmitter(timeoutMillis));
+        AtomicBoolean added = new AtomicBoolean();
+        subscribers.compute(userId, (id, set) -> {
+            Set<Subscriber> current = set != null ? set : ConcurrentHashMap.newKeySet();
+            if (current.size() < maxConnectionsPerUser) {
+                added.set(current.add(subscriber));
+            }
+            return current.isEmpty() ? null : current;
+        });
+        if (!added.get()) {
+            connections.decrementAndGet();
+            throw new TooManyRequestsException("Too many open note streams for this user", 5);
+        }
+
+        SseEmitter emitter = subscriber.emitter;
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> remove(subscriber));
+        try {
+            // written when the response starts: commits the text/event-stream headers at once,
+            // so the client (and any proxy) sees the stream open before the first change
+            emitter.send(SseEmitter.event().comment("connected"));
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+
+    // called after the change is committed; returns at once, delivery happens on the dispatcher threads
+    public void publish(Integer userId, NoteEvent event) {
+        Set<Subscriber> userSubscribers = subscribers.get(userId);
+        if (userSubscribers != null) {
+            List<NoteEvent> events = List.of(event);
+            userSubscribers.forEach(subscriber -> subscriber.offer(events));
+        }
+    }
+
+    // the events of one batch write, they take a single buffer slot
+    public void publish(Integer userId, List<NoteEvent> events) {
+        Set<Subscriber> userSubscribers = subscribers.get(userId);
+        if (userSubscribers != null && !events.isEmpty()) {
+            userSubscribers.forEach(subscriber -> subscriber.offer(events));
+        }
+    }
+
+    // closes every open stream of the user (logout, account deletion): a stream is authenticated
+    // once, when it opens, so it would otherwise keep receiving changes after the tokens are revoked
+    public void disconnect(Integer userId) {
+        Set<Subscriber> userSubscribers = subscribers.get(userId);
+        if (userSubscribers != null) {
+            userSubscribers.forEach(subscriber -> {
+                remove(subscriber);
+                subscriber.emitter.complete();
+            });
+        }
+    }
+
+    public int getConnectionCount() {
+        return connections.get();
+    }
+
+    @Override
+    public void destroy() {
+        heartbeat.shutdownNow();
+        dispatcher.shutdownNow();
+        subscribers.values().forEach(set -> set.forEach(subscriber -> subscriber.emitter.complete()));
+    }
+
+    // overridden in tests to capture what is sent
+    SseEmitter createEmitter(long timeout) {
+        return new SseEmitter(timeout);
+    }
+
+    private void sendHeartbeats() {
+        subscribers.values().forEach(set -> set.forEach(Subscriber::heartbeat));
+    }
+
+    private void remove(Subscriber subscriber) {
+        if (!subscriber.closed.compareAndSet(false, true)) {
+            return;
+        }
+        subscribers.computeIfPresent(subscriber.userId, (id, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+        connections.decrementAndGet();
+    }
+
+    private final class Subscriber implements Runnable {
+
+        private final Integer userId;
+        private final SseEmitter emitter;
+        // one entry per write
+        private final BlockingQueue<List<NoteEvent>> buffer;
+        // true while the subscriber is queued on or running in the dispatcher, so it is drained by one thread at a time
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile boolean overflowed;
+        private volatile boolean heartbeatDue;
+
+        Subscriber(Integer userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        void offer(List<NoteEvent> events) {
+            if (!buffer.offer(events)) {
+                overflowed = true;
+            }
+            schedule();
+        }
+
+        void heartbeat() {
+            heartbeatDue = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (closed.get() || !scheduled.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                dispatcher.execute(this);
+            } catch (RejectedExecutionException e) {
+                // shutting down
+                scheduled.set(false);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (overflowed) {
+                    overflows.increment();
+                    buffer.clear();
+                    emitter.send(SseEmitter.event().name(RESYNC).data(""));
+                    emitter.complete();
+                    remove(this);
+                    return;
+                }
+
+                List<NoteEvent> events;
+                while (!closed.get() && (events = buffer.poll()) != null) {
+                    for (NoteEvent event : events) {
+                        emitter.send(SseEmitter.event()
+                                .name(event.getType())
+                                .data(event, MediaType.APPLICATION_JSON));
+                    }
+                }
+                if (heartbeatDue) {
+                    heartbeatDue = false;
+                    emitter.send(SseEmitter.event().comment(""));
+                }
+            } catch (IOException | IllegalStateException e) {
+                // client went away (or the emitter already completed), the container completes the request
+                remove(this);
+            } finally {
+                scheduled.set(false);
+                // events offered while the flag was still set would otherwise wait for the next publish
+                if (!buffer.isEmpty() || overflowed || heartbeatDue) {
+                    schedule();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package com.example.demo.service;
+
+import com.example.demo.config.CacheConfig;
+import com.example.demo.dto.NoteBatchItem;
+import com.example.demo.dto.NoteChange;
+import com.example.demo.dto.NoteChangesResponse;
+import com.example.demo.dto.NoteResponse;
+import com.example.demo.exception.ForbiddenException;
+import com.example.demo.exception.NotFoundException;
+import com.example.demo.model.Note;
+import com.example.demo.model.NoteTombstone;
+import com.example.demo.model.User;
+import com.example.demo.repository.NoteRepository;
+import com.example.demo.repository.NoteTombstoneRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.security.AuditLog;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+@Service
+public class NoteService {
+
+    private final NoteRepository noteRepository;
+    private final UserRepository userRepository;
+    private final NoteTombstoneRepository tombstoneRepository;
+    private final ObjectWriter noteWriter;
+    private final WriteQueue writeQueue;
+    private final AuditLog auditLog;
+
+    @Value("${notes.batch.max-size:500}")
+    private int maxBatchSize;
+
+    // must stay above notes.batch.max-size, so one batch always fits into one page of changes
+    @Value("${notes.changes.max-size:1000}")
+    private int maxChanges;
+
+    public NoteService(NoteRepository noteRepository, UserRepository userRepository,
+                       NoteTombstoneRepository tombstoneRepository, ObjectMapper objectMapper,
+                       WriteQueue writeQueue, AuditLog auditLog) {
+        this.noteRepository = noteRepository;
+        this.userRepository = userRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.noteWriter = objectMapper.writerFor(NoteResponse.class);
+        this.writeQueue = writeQueue;
+        this.auditLog = auditLog;
+    }
+
+    // mutations below run as one unit on the WriteQueue (group commit on SQLite),
+    // each unit is a single transaction, so the note change, the counter/revision update
+    // and the change log entry (notes.revision or a tombstone) commit together
+
+    @CacheEvict(cacheNames = CacheConfig.NOTE_COUNTS, key = "#p0")
+    public NoteResponse createNote(Integer userId, String content) {
+        return writeQueue.submit(() -> {
+            long revision = nextRevision(userId, 1);
+            // reference only, the users row is not loaded
+            Note note = new Note(content, userRepository.getReferenceById(userId));
+            note.setRevision(revision);
+            noteRepository.save(note);
+            return new NoteResponse(note.getId(), note.getContent(), userId);
+        });
+    }
+
+    // single UPDATE with the ownership check (and the If-Match version, when given) in its WHERE clause,
+    // returns the new version or null when no owned note (at that version) matched
+    // (the revision is taken first, a rejected update only leaves an unused revision behind)
+    public Long updateNote(Long noteId, Integer userId, String content, Long expectedVersion) {
+        return writeQueue.submit(() -> {
+            long revision = nextRevision(userId, 0);
+            int updated = expectedVersion == null
+                    ? noteRepository.updateContentByIdAndUserId(noteId, userId, content, revision)
+                    : noteRepository.updateContentByIdAndUserIdAndVersion(noteId, userId, content, expectedVersion, revision);
+            if (updated == 0) {
+                return null;
+            }
+            return expectedVersion != null
+                    ? expectedVersion + 1
+                    : noteRepository.findVersionByIdAndUserId(noteId, userId).orElse(null);
+        });
+    }
+
+    // single DELETE with the ownership check in its WHERE clause, the counter moves only if a row went away
+    @CacheEvict(cacheNames = CacheConfig.NOTE_COUNTS, key = "#p1")
+    public boolean deleteNote(Long noteId, Integer userId) {
+        return writeQueue.submit(() -> {
+            if (noteRepository.deleteByIdAndUserId(noteId, userId) == 0) {
+                return false;
+            }
+            tombstoneRepository.save(new NoteTombstone(noteId, userId, nextRevision(userId, -1)));
+            return true;
+        });
+    }
+
+    // batch create: one transaction, inserts sent as JDBC batches (pooled sequence ids)
+    @CacheEvict(cacheNames = CacheConfig.NOTE_COUNTS, key = "#p0")
+    public List<NoteResponse> createNotes(Integer userId, List<NoteBatchItem> items) {
+        checkBatchSize(items);
+        return writeQueue.submit(() -> {
+            long revision = nextRevision(userId, items.size());
+            User owner = userRepository.getReferenceById(userId);
+
+            List<Note> notes = noteRepository.saveAll(items.stream()
+                    .map(item -> {
+                        Note note = new Note(item.getContent(), owner);
+                        note.setRevision(revision);
+                        return note;
+                    })
+                    .toList());
+
+            return notes.stream()
+                    .map(note -> new NoteResponse(note.getId(), note.getContent(), userId))
+                    .toList();
+        });
+    }
+
+    // batch update: ownership of the whole batch is checked with the single load query,
+    // changed rows are flushed as batched UPDATEs on commit
+    public List<NoteResponse> updateNotes(Integer userId, List<NoteBatchItem> items) {
+        checkBatchSize(items);
+        Map<Long, String> contentById = new LinkedHashMap<>();
+        for (NoteBatchItem item : items) {
+            if (item.getId() == null) {
+                throw new RuntimeException("Note id is required for update");
+            }
+            contentById.put(item.getId(), item.getContent());
+        }
+
+        return submitBatch(userId, () -> {
+            List<Note> notes = loadOwnedNotes(userId, contentById.keySet());
+            long revision = nextRevision(userId, 0);
+            notes.forEach(note -> {
+                note.setContent(contentById.get(note.getId()));
+                note.setRevision(revision);
+            });
+
+            return notes.stream()
+                    .map(note -> new NoteResponse(note.getId(), note.getContent(), userId))
+                    .toList();
+        });
+    }
+
+    // batch delete: one ownership query and one DELETE statement for the whole batch
+    @CacheEvict(cacheNames = CacheConfig.NOTE_COUNTS, key = "#p0")
+    public int deleteNotes(Integer userId, List<Long> ids) {
+        checkBatchSize(ids);
+        return submitBatch(userId, () -> {
+            List<Note> notes = loadOwnedNotes(userId, new LinkedHashSet<>(ids));
+
+            noteRepository.deleteAllInBatch(notes);
+            long revision = nextRevision(userId, -notes.size());
+            tombstoneRepository.saveAll(notes.stream()
+                    .map(note -> new NoteTombstone(note.getId(), userId, revision))
+                    .toList());
+            return notes.size();
+        });
+    }
+
+    // notes created/updated and ids deleted after the client's cursor (a users.note_revision value).
+    // The upper bound is read first, so changes committed meanwhile are left for the next call.
+    // A page ends on a revision boundary, every note of one change (e.g. a batch) arrives together.
+    @Transactional(readOnly = true)
+    public NoteChangesResponse getChanges(Integer userId, long since) {
+        long current = userRepository.findNoteRevisionById(userId).orElse(0L);
+        if (since >= current) {
+            return new NoteChangesResponse(List.of(), List.of(), current, false);
+        }
+
+        List<NoteChange> changed = noteRepository.findChangesByUserId(userId, since, current, Limit.of(maxChanges + 1));
+        long cursor = current;
+        boolean hasMore = false;
+        if (changed.size() > maxChanges) {
+            // drop the revision the page was cut in, unless it is the only one
+            long cut = changed.get(maxChanges).getRevision();
+            if (cut > changed.get(0).getRevision()) {
+                cursor = cut - 1;
+                long last = cursor;
+                changed = changed.stream().filter(change -> change.getRevision() <= last).toList();
+            } else {
+                cursor = cut;
+            }
+            hasMore = true;
+        }
+
+        List<Long> deleted = tombstoneRepository.findDeletedIds(userId, since, cursor);
+        return new NoteChangesResponse(changed, deleted, cursor, hasMore);
+    }
+
+    // O(1): cached counter, falls back to the single users row
+    @Cacheable(cacheNames = CacheConfig.NOTE_COUNTS, key = "#p0", sync = true)
+    public int countNotes(Integer userId) {
+        return userRepository.findNoteCountById(userId).orElse(0);
+    }
+
+    // recounts every user from the notes table, returns how many counters were wrong
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.NOTE_COUNTS, allEntries = true)
+    public int rebuildNoteCounts() {
+        return userRepository.rebuildNoteCounts();
+    }
+
+    // writes every note of the user as one JSON object per line (NDJSON)
+    // rows are read through a cursor as projections, so memory does not grow with the note count
+    @Transactional(readOnly = true)
+    public void writeNotesAsNdjson(Integer userId, OutputStream out) throws IOException {
+        try (Stream<NoteResponse> notes = noteRepository.streamByUserId(userId)) {
+            Iterator<NoteResponse> iterator = notes.iterator();
+            while (iterator.hasNext()) {
+                out.write(noteWriter.writeValueAsBytes(iterator.next()));
+                out.write('\n');
+            }
+        }
+        out.flush();
+    }
+
+    // bumps the user's note revision (and moves the counter by delta) and returns it,
+    // every note change of the unit is stamped with this revision
+    private long nextRevision(Integer userId, int countDelta) {
+        userRepository.adjustNoteCount(userId, countDelta);
+        return userRepository.findNoteRevisionById(userId).orElseThrow();
+    }
+
+    // all-or-nothing: any missing id fails the batch with 404, any foreign note with 403
+    private List<Note> loadOwnedNotes(Integer userId, Set<Long> ids) {
+        List<Note> notes = noteRepository.findAllById(ids);
+        if (notes.size() != ids.size()) {
+            throw new NotFoundException("Note not found");
+        }
+
+        // owner id comes from the lazy proxy, users rows are not loaded
+        List<Long> foreignIds = notes.stream()
+                .filter(note -> !note.getUser().getId().equals(userId))
+                .map(Note::getId)
+                .toList();
+        if (!foreignIds.isEmpty()) {
+            throw new ForeignNotesException(foreignIds);
+        }
+        return notes;
+    }
+
+    // a rejected batch is audited once its outcome is known: the unit itself may run twice (WriteQueue retry)
+    private <T> T submitBatch(Integer userId, Supplier<T> unit) {
+        try {
+            return writeQueue.submit(unit);
+        } catch (ForeignNotesException e) {
+            auditLog.batchAccessDenied(userId, e.noteIds);
+            throw e;
+        }
+    }
+
+    private void checkBatchSize(Collection<?> batch) {
+        if (batch.size() > maxBatchSize) {
+            throw new RuntimeException("Batch is too large, max " + maxBatchSize + " notes");
+        }
+    }
+
+    private static class ForeignNotesException extends ForbiddenException {
+
+        private final List<Long> noteIds;
+
+        ForeignNotesException(List<Long> noteIds) {
+            super("Access denied: You do not own this note");
+            this.noteIds = noteIds;
+        }
+    }
+}
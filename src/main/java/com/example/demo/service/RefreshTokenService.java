@@ -1,62 +1,197 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.RefreshTokenOwner;
 import com.example.demo.model.RefreshToken;
 import com.example.demo.repository.RefreshTokenRepository;
 import com.example.demo.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
 import java.time.Instant;
-import java.util.Optional;
-import java.util.UUID;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
 
+/**
+ * Refresh tokens: only the SHA-256 hash is stored, looked up through its unique index.
+ * Recently issued tokens are kept in an in-memory hot set (hash -> owner), so a refresh normally costs
+ * one UPDATE. The database stays authoritative: the rotation UPDATE only matches a live row,
+ * so a stale hot set entry (token revoked by a later login/logout) can never rotate.
+ * Expired rows are removed by a scheduled purge in small batches.
+ */
 @Service
-public class RefreshTokenService {
+public class RefreshTokenService implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private static final SecureRandom RANDOM = new SecureRandom();
 
     @Value("${jwt.refresh-expiration}")
     private Long refreshDurationMs;
 
+    @Value("${app.refresh-tokens.purge-batch-size:1000}")
+    private int purgeBatchSize;
+
     private final RefreshTokenRepository refreshTokenRepository;
     private final UserRepository userRepository;
+    // entries expire together with their token
+    private final Cache<String, RefreshTokenOwner> hotSet;
 
-    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository, UserRepository userRepository) {
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository, UserRepository userRepository,
+                               @Value("${app.cache.refresh-tokens.max-size:10000}") long hotSetMaxSize) {
         this.refreshTokenRepository = refreshTokenRepository;
         this.userRepository = userRepository;
+        this.hotSet = Caffeine.newBuilder()
+                .maximumSize(hotSetMaxSize)
+                .expireAfter(new TokenExpiry())
+                .recordStats()
+                .build();
     }
 
-    public Optional<RefreshToken> findByToken(String token) {
-        return refreshTokenRepository.findByToken(token);
-    }
+    // new token for a fresh login, replaces the user's previous tokens (one session per user)
+    @Transactional
+    public String issueRefreshToken(Integer userId, String email) {
+        refreshTokenRepository.deleteByUserId(userId);
 
-    // create new refresh token for user
-    public RefreshToken createRefreshToken(String email) {
+        String token = newToken();
         RefreshToken refreshToken = new RefreshToken();
-
-        refreshToken.setUser(userRepository.findByEmail(email).get());
+        // reference only, the users row is not loaded
+        refreshToken.setUser(userRepository.getReferenceById(userId));
         // expiry date = now + duration from application.properties
         refreshToken.setExpiryDate(Instant.now().plusMillis(refreshDurationMs));
-        // random UUID string as token
-        refreshToken.setToken(UUID.randomUUID().toString());
+        refreshToken.setTokenHash(hash(token));
+        refreshTokenRepository.save(refreshToken);
 
-        return refreshTokenRepository.save(refreshToken);
+        hotSet.put(refreshToken.getTokenHash(), new RefreshTokenOwner(userId, email, refreshToken.getExpiryDate()));
+        return token;
     }
 
-    // check if the token is expired
-    public RefreshToken verifyExpiration(RefreshToken token) {
-        if (token.getExpiryDate().compareTo(Instant.now()) < 0) {
-            refreshTokenRepository.delete(token);
+    // swaps the presented token for a new one with a single UPDATE, a token can be used only once
+    @Transactional
+    public RotatedToken rotate(String token) {
+        String oldHash = hash(token);
+        RefreshTokenOwner owner = hotSet.getIfPresent(oldHash);
+        if (owner == null) {
+            owner = refreshTokenRepository.findOwnerByTokenHash(oldHash)
+                    .orElseThrow(() -> new RuntimeException("Refresh token is not in database!"));
+        }
+
+        // the row itself is left to the purge
+        Instant now = Instant.now();
+        if (!owner.getExpiryDate().isAfter(now)) {
+            hotSet.invalidate(oldHash);
             throw new RuntimeException("Refresh token was expired. Please make a new signin request");
         }
-        return token;
+
+        String newToken = newToken();
+        String newHash = hash(newToken);
+        Instant expiryDate = now.plusMillis(refreshDurationMs);
+        int rotated = refreshTokenRepository.rotate(oldHash, newHash, expiryDate, now);
+        hotSet.invalidate(oldHash);
+        if (rotated == 0) {
+            throw new RuntimeException("Refresh token is not in database!");
+        }
+
+        RefreshTokenOwner rotatedOwner = new RefreshTokenOwner(owner.getUserId(), owner.getEmail(), expiryDate);
+        hotSet.put(newHash, rotatedOwner);
+        return new RotatedToken(newToken, rotatedOwner);
     }
 
-    // delete refresh tokens by user id
+    // logout: one DELETE by user id, hot set entries of these tokens can no longer rotate
     @Transactional
     public void deleteByUserId(Integer userId) {
-        // find user by id
-        var user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        refreshTokenRepository.deleteByUser(user);
+        refreshTokenRepository.deleteByUserId(userId);
+    }
+
+    // expired rows go away in batches, each batch is a short transaction of its own
+    @Scheduled(fixedDelayString = "${app.refresh-tokens.purge-interval:PT1H}",
+               initialDelayString = "${app.refresh-tokens.purge-interval:PT1H}")
+    public int purgeExpired() {
+        Instant now = Instant.now();
+        int purged = 0;
+        List<Long> ids;
+        do {
+            ids = refreshTokenRepository.findExpiredIds(now, Limit.of(purgeBatchSize));
+            if (!ids.isEmpty()) {
+                purged += refreshTokenRepository.deleteExpiredByIds(ids, now);
+            }
+        } while (ids.size() == purgeBatchSize);
+
+        if (purged > 0) {
+            logger.info("Purged {} expired refresh token(s)", purged);
+        }
+        return purged;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, hotSet, "refreshTokens");
+    }
+
+    // 256 random bits, URL-safe
+    private static String newToken() {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    // an entry expires together with its token, reads and updates do not extend it
+    private static class TokenExpiry implements Expiry<String, RefreshTokenOwner> {
+
+        @Override
+        public long expireAfterCreate(String hash, RefreshTokenOwner owner, long currentTime) {
+            long ttlNanos = Duration.between(Instant.now(), owner.getExpiryDate()).toNanos();
+            return Math.max(0, ttlNanos);
+        }
+
+        @Override
+        public long expireAfterUpdate(String hash, RefreshTokenOwner owner, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String hash, RefreshTokenOwner owner, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    // the new raw token (sent to the client once) and who it belongs to
+    public static class RotatedToken {
+
+        private final String token;
+        private final RefreshTokenOwner owner;
+
+        RotatedToken(String token, RefreshTokenOwner owner) {
+            this.token = token;
+            this.owner = owner;
+        }
+
+        public String getToken() { return token; }
+        public RefreshTokenOwner getOwner() { return owner; }
     }
-}
\ No newline at end of file
+}
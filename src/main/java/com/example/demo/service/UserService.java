@@ -1,22 +1,37 @@
 package com.example.demo.service;
 
+import com.example.demo.config.CacheConfig;
 import com.example.demo.dto.CreateUserRequest;
+import com.example.demo.exception.NotFoundException;
 import com.example.demo.model.User;
+import com.example.demo.repository.NoteRepository;
+import com.example.demo.repository.NoteTombstoneRepository;
+import com.example.demo.repository.RefreshTokenRepository;
 import com.example.demo.repository.UserRepository;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.security.crypto.password.PasswordEncoder; 
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder; 
+    private final NoteRepository noteRepository;
+    private final NoteTombstoneRepository tombstoneRepository;
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final WriteQueue writeQueue;
 
     // dependency injection through constructor
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder,
+                       NoteRepository noteRepository, NoteTombstoneRepository tombstoneRepository,
+                       RefreshTokenRepository refreshTokenRepository, WriteQueue writeQueue) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.noteRepository = noteRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.writeQueue = writeQueue;
     }
 
     public User getUserById(Integer id) {
@@ -24,7 +39,9 @@ public class UserService {
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
     }
 
-    @Transactional
+    // the duplicate check may have cached "not found" for this email;
+    // not @Transactional: the hash takes ~250 ms and must not hold a connection, only save() is transactional
+    @CacheEvict(cacheNames = {CacheConfig.USER_DETAILS, CacheConfig.USERS_BY_EMAIL}, key = "#p0.email")
     public User createUser(CreateUserRequest request) {
         // dublicate check email
         if (userRepository.findByEmail(request.getEmail()).isPresent()) {
@@ -37,6 +54,22 @@ public class UserService {
         User user = new User(request.getUsername(), request.getEmail(), encodedPassword);
         return userRepository.save(user);
     }
+
+    // the account with its notes, deleted-note log and refresh tokens, as one write unit;
+    // returns the removed user, the caller evicts its cached details by email
+    @CacheEvict(cacheNames = CacheConfig.NOTE_COUNTS, key = "#p0")
+    public User deleteUser(Integer id) {
+        return writeQueue.submit(() -> {
+            User user = userRepository.findById(id)
+                    .orElseThrow(() -> new NotFoundException("User not found with id: " + id));
+            // notes_fts follows through its triggers
+            noteRepository.deleteByUserId(id);
+            tombstoneRepository.deleteByUserId(id);
+            refreshTokenRepository.deleteByUserId(id);
+            userRepository.deleteById(id);
+            return user;
+        });
+    }
     
     
 }
\ No newline at end of file
@@ -0,0 +1,221 @@
+package com.example.demo.service;
+
+import com.example.demo.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Single writer with group commit. Submitted write units are executed by one thread,
+ * several of them per transaction, so concurrent writers share one commit instead of
+ * queueing for the SQLite write lock one by one. If a unit fails, the group is rolled back
+ * and its units are re-run in their own transactions, so only the failing unit sees the error.
+ * A unit may therefore run twice: it must only touch the database, side effects such as audit
+ * events or log lines belong to the caller, after submit returned or threw.
+ *
+ * Disabled (app.sqlite.write-queue.enabled=false) or when the caller already runs in a transaction,
+ * the unit simply runs in the caller's thread in a regular transaction.
+ *
+ * On shutdown the units still queued are not executed, their callers fail right away.
+ */
+@Component
+public class WriteQueue implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteQueue.class);
+
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int maxGroupSize;
+    private final Duration timeout;
+    private final BlockingQueue<WriteTask<?>> queue;
+    private final DistributionSummary groupSizes;
+    private final Thread writer;
+
+    private volatile boolean running = true;
+
+    public WriteQueue(PlatformTransactionManager transactionManager,
+                      @Value("${app.sqlite.write-queue.enabled:false}") boolean enabled,
+                      @Value("${app.sqlite.write-queue.max-group-size:64}") int maxGroupSize,
+                      @Value("${app.sqlite.write-queue.capacity:10000}") int capacity,
+                      @Value("${app.sqlite.write-queue.timeout:PT10S}") Duration timeout,
+                      MeterRegistry registry) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.maxGroupSize = maxGroupSize;
+        this.timeout = timeout;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.groupSizes = DistributionSummary.builder("notes.write.group.size")
+                .description("Write units committed per transaction")
+                .register(registry);
+        registry.gaugeCollectionSize("notes.write.queue.size", List.of(), queue);
+
+        if (enabled) {
+            writer = new Thread(this::drain, "sqlite-writer");
+            writer.setDaemon(true);
+            writer.start();
+        } else {
+            writer = null;
+        }
+    }
+
+    public <T> T submit(Supplier<T> work) {
+        if (!enabled || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return transactionTemplate.execute(status -> work.get());
+        }
+
+        if (!running) {
+            throw new IllegalStateException("Write queue is shut down");
+        }
+        WriteTask<T> task = new WriteTask<>(work);
+        if (!queue.offer(task)) {
+            throw new TooManyRequestsException("Too many pending writes, try again later", 1);
+        }
+        // raced with destroy(): it may have drained the queue before this offer
+        if (!running && task.claim()) {
+            queue.remove(task);
+            throw new IllegalStateException("Write queue is shut down");
+        }
+        try {
+            return await(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the write to commit", e);
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        if (writer != null) {
+            writer.interrupt();
+            writer.join(timeout.toMillis());
+        }
+        List<WriteTask<?>> pending = new ArrayList<>();
+        queue.drainTo(pending);
+        for (WriteTask<?> task : pending) {
+            if (task.claim()) {
+                task.result.completeExceptionally(new IllegalStateException("Write queue is shut down"));
+            }
+        }
+    }
+
+    private <T> T await(WriteTask<T> task) throws InterruptedException {
+        try {
+            return task.result.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // not started yet: drop it, the caller gets an error and nothing is written
+            if (task.claim()) {
+                throw new TooManyRequestsException("Write queue is saturated, try again later", 1);
+            }
+            // already executing, its outcome is still the caller's answer
+            return join(task);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    private <T> T join(WriteTask<T> task) throws InterruptedException {
+        try {
+            return task.result.get();
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    private void drain() {
+        List<WriteTask<?>> group = new ArrayList<>(maxGroupSize);
+        while (running) {
+            try {
+                group.add(queue.take());
+                queue.drainTo(group, maxGroupSize - 1);
+                group.removeIf(task -> !task.claim());
+                if (!group.isEmpty()) {
+                    commit(group);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Write queue group failed", e);
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    private void commit(List<WriteTask<?>> group) {
+        groupSizes.record(group.size());
+        try {
+            List<Object> results = transactionTemplate.execute(status -> {
+                List<Object> values = new ArrayList<>(group.size());
+                for (WriteTask<?> task : group) {
+                    values.add(task.work.get());
+                }
+                return values;
+            });
+            for (int i = 0; i < group.size(); i++) {
+                group.get(i).complete(results.get(i));
+            }
+        } catch (RuntimeException e) {
+            if (group.size() == 1) {
+                group.get(0).result.completeExceptionally(e);
+                return;
+            }
+            // the whole group was rolled back, retry each unit alone to isolate the failing one
+            for (WriteTask<?> task : group) {
+                try {
+                    task.complete(transactionTemplate.execute(status -> task.work.get()));
+                } catch (RuntimeException taskFailure) {
+                    task.result.completeExceptionally(taskFailure);
+                }
+            }
+        }
+    }
+
+    private static RuntimeException unwrap(ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        return new IllegalStateException("Write failed", e.getCause());
+    }
+
+    private static class WriteTask<T> {
+
+        private final Supplier<T> work;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        // set once by whoever gets there first: the writer (execute) or a timed-out caller (abandon)
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        WriteTask(Supplier<T> work) {
+            this.work = work;
+        }
+
+        boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+
+        @SuppressWarnings("unchecked")
+        void complete(Object value) {
+            result.complete((T) value);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+-- ids come from notes_seq through BlockIdGenerator: one nextval reserves a block of 50 ids
+-- (Note.id @BlockId allocationSize), so INCREMENT BY must match it and the first value ends the first block
+CREATE SEQUENCE notes_seq START WITH 50 INCREMENT BY 50;
+
+CREATE TABLE notes (
+    id BIGINT PRIMARY KEY,
+    content TEXT,
+    user_id INTEGER NOT NULL,
+    FOREIGN KEY (user_id) REFERENCES users(id)
+);
@@ -0,0 +1,6 @@
+-- full-text index over notes.content for GET /api/notes/search
+-- the generated column is maintained by Postgres on every insert/update (the trigger-free equivalent of FTS5)
+ALTER TABLE notes ADD COLUMN content_tsv tsvector
+    GENERATED ALWAYS AS (to_tsvector('simple', coalesce(content, ''))) STORED;
+
+CREATE INDEX idx_notes_content_tsv ON notes USING GIN (content_tsv);
@@ -0,0 +1,20 @@
+-- change log for GET /api/notes/changes?since=<revision>
+-- every note carries the users.note_revision of its last create/update
+ALTER TABLE notes ADD COLUMN revision BIGINT NOT NULL DEFAULT 0;
+
+-- existing notes count as changed at the user's next revision, so since=0 returns all of them
+UPDATE users SET note_revision = note_revision + 1
+WHERE EXISTS (SELECT 1 FROM notes WHERE notes.user_id = users.id);
+
+UPDATE notes SET revision = (SELECT users.note_revision FROM users WHERE users.id = notes.user_id);
+
+CREATE INDEX idx_notes_user_id_revision ON notes (user_id, revision);
+
+-- deleted notes, kept so clients can drop them from their local copy
+CREATE TABLE note_tombstones (
+    note_id BIGINT PRIMARY KEY,
+    user_id INTEGER NOT NULL,
+    revision BIGINT NOT NULL
+);
+
+CREATE INDEX idx_note_tombstones_user_id_revision ON note_tombstones (user_id, revision);
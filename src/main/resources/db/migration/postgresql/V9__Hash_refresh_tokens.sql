@@ -0,0 +1,9 @@
+-- refresh tokens are stored as SHA-256 hex (fixed width, unique index), never as the raw value
+ALTER TABLE refresh_tokens ADD COLUMN token_hash CHAR(64);
+UPDATE refresh_tokens SET token_hash = encode(sha256(convert_to(token, 'UTF8')), 'hex');
+ALTER TABLE refresh_tokens ALTER COLUMN token_hash SET NOT NULL;
+ALTER TABLE refresh_tokens ADD CONSTRAINT uk_refresh_tokens_token_hash UNIQUE (token_hash);
+ALTER TABLE refresh_tokens DROP COLUMN token;
+
+-- batched purge of expired tokens
+CREATE INDEX idx_refresh_tokens_expiry_date ON refresh_tokens (expiry_date);
@@ -0,0 +1,5 @@
+-- notes are always read per owner: keyset pages (user_id, id > ?), counts and ownership checks
+CREATE INDEX idx_notes_user_id_id ON notes (user_id, id);
+
+-- refresh tokens are deleted per user on every login, refresh and logout
+CREATE INDEX idx_refresh_tokens_user_id ON refresh_tokens (user_id);
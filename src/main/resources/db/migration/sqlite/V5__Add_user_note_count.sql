@@ -0,0 +1,4 @@
+-- denormalized per-user note counter, maintained by NoteService on create/delete
+ALTER TABLE users ADD COLUMN note_count INTEGER NOT NULL DEFAULT 0;
+
+UPDATE users SET note_count = (SELECT COUNT(*) FROM notes WHERE notes.user_id = users.id);
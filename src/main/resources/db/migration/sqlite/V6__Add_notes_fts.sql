@@ -0,0 +1,27 @@
+-- full-text index over notes.content for GET /api/notes/search
+-- external content table: the text is stored once (in notes), notes_fts holds only the index.
+-- user_id is indexed as a token too, so a search intersects the user's postings with the terms
+-- instead of ranking every matching note of every user
+CREATE VIRTUAL TABLE notes_fts USING fts5(
+    content,
+    user_id,
+    content = 'notes',
+    content_rowid = 'id',
+    tokenize = 'unicode61 remove_diacritics 2'
+);
+
+INSERT INTO notes_fts (notes_fts) VALUES ('rebuild');
+
+-- kept in sync with notes by triggers, in the same transaction as the change
+CREATE TRIGGER notes_fts_after_insert AFTER INSERT ON notes BEGIN
+    INSERT INTO notes_fts (rowid, content, user_id) VALUES (new.id, new.content, new.user_id);
+END;
+
+CREATE TRIGGER notes_fts_after_delete AFTER DELETE ON notes BEGIN
+    INSERT INTO notes_fts (notes_fts, rowid, content, user_id) VALUES ('delete', old.id, old.content, old.user_id);
+END;
+
+CREATE TRIGGER notes_fts_after_update AFTER UPDATE OF content, user_id ON notes BEGIN
+    INSERT INTO notes_fts (notes_fts, rowid, content, user_id) VALUES ('delete', old.id, old.content, old.user_id);
+    INSERT INTO notes_fts (rowid, content, user_id) VALUES (new.id, new.content, new.user_id);
+END;
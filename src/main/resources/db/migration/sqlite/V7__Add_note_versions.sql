@@ -0,0 +1,5 @@
+-- per-note version: optimistic locking (If-Match) and per-note ETags
+ALTER TABLE notes ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+-- per-user change counter, bumped with every note change: ETag of GET /api/notes
+ALTER TABLE users ADD COLUMN note_revision BIGINT NOT NULL DEFAULT 0;
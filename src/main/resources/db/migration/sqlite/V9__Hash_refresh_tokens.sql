@@ -0,0 +1,18 @@
+-- refresh tokens are stored as SHA-256 hex (fixed width, unique index), never as the raw value.
+-- SQLite has no SHA-256 function to convert the existing rows, so they are dropped:
+-- open sessions sign in again once their access token expires
+CREATE TABLE refresh_tokens_hashed (
+    id INTEGER PRIMARY KEY AUTOINCREMENT,
+    token_hash CHAR(64) NOT NULL UNIQUE,
+    expiry_date DATETIME NOT NULL,
+    user_id INTEGER NOT NULL,
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+DROP TABLE refresh_tokens;
+ALTER TABLE refresh_tokens_hashed RENAME TO refresh_tokens;
+
+-- per-user delete on login/logout
+CREATE INDEX idx_refresh_tokens_user_id ON refresh_tokens (user_id);
+-- batched purge of expired tokens
+CREATE INDEX idx_refresh_tokens_expiry_date ON refresh_tokens (expiry_date);
@@ -0,0 +1,85 @@
+package com.example.demo;
+
+import com.example.demo.dto.CreateUserRequest;
+import com.example.demo.dto.LoginRequest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.Map;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Users and notes for the API tests: request bodies (also sent by the load tests with their own
+ * HTTP client) and the register / login / create note round trips through MockMvc.
+ */
+public class ApiFixtures {
+
+    public static final String PASSWORD = "securePass123";
+
+    private final MockMvc mockMvc;
+    private final ObjectMapper objectMapper;
+
+    public ApiFixtures(MockMvc mockMvc, ObjectMapper objectMapper) {
+        this.mockMvc = mockMvc;
+        this.objectMapper = objectMapper;
+    }
+
+    public static CreateUserRequest signup(String username, String email, String password) {
+        CreateUserRequest signup = new CreateUserRequest();
+        signup.setUsername(username);
+        signup.setEmail(email);
+        signup.setPassword(password);
+        return signup;
+    }
+
+    public static LoginRequest credentials(String email, String password) {
+        LoginRequest login = new LoginRequest();
+        login.setEmail(email);
+        login.setPassword(password);
+        return login;
+    }
+
+    public static Map<String, String> note(String content) {
+        return Map.of("content", content);
+    }
+
+    public void register(String email) throws Exception {
+        mockMvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(signup("TestUser", email, PASSWORD))))
+                .andExpect(status().isCreated());
+    }
+
+    // login response body: accessToken and refreshToken
+    public JsonNode login(String email) throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(credentials(email, PASSWORD))))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        return objectMapper.readTree(result.getResponse().getContentAsString());
+    }
+
+    // access token of a new user
+    public String registerAndLogin(String email) throws Exception {
+        register(email);
+        return login(email).get("accessToken").asText();
+    }
+
+    public long createNote(String token, String content) throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/notes")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(note(content))))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("id").asLong();
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.model.User;
+import com.example.demo.security.CustomUserDetailsService;
+import com.example.demo.security.JwtAuthenticationFilter;
+import com.example.demo.security.JwtUtil;
+import com.example.demo.security.TokenRevocationList;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Authentication hot path, everything an authenticated request pays before it reaches a controller.
+ * verifySignature is the cost of a JwtUtil cache miss (HMAC check + JSON parse), the extract/validate
+ * benchmarks are cache hits. authenticateRequest runs JwtAuthenticationFilter end to end
+ * (doFilterInternal through the public doFilter) with a no-op chain, in both principal modes;
+ * the user lookup of the default mode is an in-memory UserDetailsService, so the database is not measured.
+ *
+ * Throughput and average time per call; -prof gc (on by default in jmh.args) adds gc.alloc.rate.norm,
+ * the bytes allocated per call.
+ *
+ * Run with: ./mvnw -Pbenchmark test -Djmh.args="AuthBenchmark -prof gc -rf json -rff target/jmh-result.json"
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AuthBenchmark {
+
+    private static final String SECRET = "SecretKeyForBenchmarkingMustBeLongEnough1234567890";
+    private static final long EXPIRATION = 3600000;
+
+    private JwtUtil jwtUtil;
+    private JwtParser parser;
+    private User user;
+    private UserDetails userDetails;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil(SECRET, EXPIRATION, 10000);
+        parser = Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build();
+
+        user = new User("BenchUser", "bench@example.com", "{bcrypt}$2a$12$abcdefghijklmnopqrstuv");
+        user.setId(42);
+        userDetails = new CustomUserDetailsService.CustomUserDetails(user);
+        token = jwtUtil.generateToken(userDetails);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken(userDetails);
+    }
+
+    @Benchmark
+    public Claims verifySignature() {
+        return parser.parseSignedClaims(token).getPayload();
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return jwtUtil.extractUsername(token);
+    }
+
+    @Benchmark
+    public boolean isValidToken() {
+        return jwtUtil.isValidToken(token, userDetails);
+    }
+
+    @Benchmark
+    public Authentication authenticateRequest(RequestState state) throws ServletException, IOException {
+        state.filter.doFilter(state.request, state.response, state.chain);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        // next invocation authenticates from scratch, like a new request
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+
+    // principal built from the users row (login, default filter mode)
+    @Benchmark
+    public UserDetails customUserDetailsFromUser() {
+        return new CustomUserDetailsService.CustomUserDetails(user);
+    }
+
+    // principal built from the token claims (jwt.stateless-principal=true)
+    @Benchmark
+    public UserDetails customUserDetailsFromClaims() {
+        return jwtUtil.extractUserDetails(token);
+    }
+
+    @State(Scope.Thread)
+    public static class RequestState {
+
+        // jwt.stateless-principal
+        @Param({"false", "true"})
+        public boolean statelessPrincipal;
+
+        private JwtAuthenticationFilter filter;
+        private MockHttpServletRequest request;
+        private MockHttpServletResponse response;
+        private FilterChain chain;
+
+        @Setup
+        public void setUp() {
+            JwtUtil jwtUtil = new JwtUtil(SECRET, EXPIRATION, 10000);
+            User user = new User("BenchUser", "bench@example.com", "{bcrypt}$2a$12$abcdefghijklmnopqrstuv");
+            user.setId(42);
+            UserDetails userDetails = new CustomUserDetailsService.CustomUserDetails(user);
+
+            TokenRevocationList revocationList = new TokenRevocationList(
+                    100000, EXPIRATION, Duration.ofMinutes(1), new SimpleMeterRegistry());
+            filter = new JwtAuthenticationFilter(jwtUtil, username -> userDetails, revocationList, statelessPrincipal,
+                    new SimpleMeterRegistry());
+
+            request = new MockHttpServletRequest("GET", "/api/notes");
+            request.addHeader("Authorization", "Bearer " + jwtUtil.generateToken(userDetails));
+            response = new MockHttpServletResponse();
+            chain = (req, res) -> { };
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.demo.benchmark;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * Count and list latency of the per-user note queries before and after V4 (user_id indexes).
+ * Seeds a temporary SQLite file through the real Flyway migrations.
+ *
+ * Run with: ./mvnw test -Dtest=NoteIndexBenchmark -Dbenchmark=true [-Dbenchmark.notes=1000000]
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class NoteIndexBenchmark {
+
+    private static final int NOTES = Integer.getInteger("benchmark.notes", 1_000_000);
+    private static final int USERS = Integer.getInteger("benchmark.users", 1_000);
+    private static final int ITERATIONS = Integer.getInteger("benchmark.iterations", 200);
+
+    // queries as NoteRepository ran them before V4: filter by email through a join
+    private static final String COUNT_BY_EMAIL =
+            "SELECT COUNT(*) FROM notes n JOIN users u ON n.user_id = u.id WHERE u.email = ?";
+    private static final String LIST_BY_EMAIL =
+            "SELECT n.id, n.content, n.user_id FROM notes n JOIN users u ON n.user_id = u.id " +
+            "WHERE u.email = ? AND n.id > 0 ORDER BY n.id LIMIT 100";
+
+    // queries as NoteRepository runs them now: filter by the authenticated user id
+    private static final String COUNT_BY_USER_ID = "SELECT COUNT(*) FROM notes WHERE user_id = ?";
+    private static final String LIST_BY_USER_ID =
+            "SELECT id, content, user_id FROM notes WHERE user_id = ? AND id > 0 ORDER BY id LIMIT 100";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void countAndListLatency_BeforeAndAfterIndexes() throws SQLException {
+        String url = "jdbc:sqlite:" + tempDir.resolve("benchmark.db");
+
+        migrate(url, "3");
+        try (Connection connection = DriverManager.getConnection(url)) {
+            seed(connection);
+
+            int userId = USERS / 2;
+            String email = "user" + userId + "@bench.test";
+
+            System.out.printf("%nNote queries, %,d notes across %,d users (%d iterations)%n", NOTES, USERS, ITERATIONS);
+            report("count, email join, no index", measure(connection, COUNT_BY_EMAIL, email));
+            report("list,  email join, no index", measure(connection, LIST_BY_EMAIL, email));
+
+            migrate(url, "4");
+            report("count, user_id, idx_notes_user_id_id", measure(connection, COUNT_BY_USER_ID, userId));
+            report("list,  user_id, idx_notes_user_id_id", measure(connection, LIST_BY_USER_ID, userId));
+        }
+    }
+
+    private static void migrate(String url, String targetVersion) {
+        Flyway.configure()
+                .dataSource(url, null, null)
+                .locations("classpath:db/migration/sqlite")
+                .target(targetVersion)
+                .load()
+                .migrate();
+    }
+
+    private static void seed(Connection connection) throws SQLException {
+        connection.setAutoCommit(false);
+        try (PreparedStatement users = connection.prepareStatement(
+                     "INSERT INTO users (id, username, email, password) VALUES (?, ?, ?, 'x')");
+             PreparedStatement notes = connection.prepareStatement(
+                     "INSERT INTO notes (content, user_id) VALUES (?, ?)")) {
+            for (int i = 1; i <= USERS; i++) {
+                users.setInt(1, i);
+                users.setString(2, "user" + i);
+                users.setString(3, "user" + i + "@bench.test");
+                users.addBatch();
+            }
+            users.executeBatch();
+
+            for (int i = 0; i < NOTES; i++) {
+                notes.setString(1, "Benchmark note " + i);
+                notes.setInt(2, i % USERS + 1);
+                notes.addBatch();
+                if (i % 10_000 == 0) {
+                    notes.executeBatch();
+                }
+            }
+            notes.executeBatch();
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+    }
+
+    private static long[] measure(Connection connection, String sql, Object parameter) throws SQLException {
+        long[] nanos = new long[ITERATIONS];
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setObject(1, parameter);
+            for (int i = 0; i < ITERATIONS; i++) {
+                long start = System.nanoTime();
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        resultSet.getObject(1);
+                    }
+                }
+                nanos[i] = System.nanoTime() - start;
+            }
+        }
+        Arrays.sort(nanos);
+        return nanos;
+    }
+
+    private static void report(String name, long[] sortedNanos) {
+        System.out.printf("  %-40s p50 %9.3f ms   p99 %9.3f ms%n", name,
+                sortedNanos[sortedNanos.length / 2] / 1e6,
+                sortedNanos[(int) (sortedNanos.length * 0.99)] / 1e6);
+    }
+}
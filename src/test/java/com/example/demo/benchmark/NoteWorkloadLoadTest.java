@@ -0,0 +1,403 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.ApiFixtures;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * End-to-end load test: starts the application on a random port against a temporary SQLite file
+ * (Flyway schema, production settings), seeds N users with M notes each over the API and then replays
+ * a weighted mix of login, refresh, create, get, list, update, delete and count from closed-loop clients.
+ * Every client owns its own users, so one client's login never invalidates another client's refresh token.
+ *
+ * The run is reproducible for a given seed (same users, same operation sequence per client).
+ * Latencies are recorded per endpoint in HdrHistogram (closed loop: service time under N clients,
+ * not corrected for coordinated omission). The summary goes to stdout and to report.txt, the full
+ * percentile distribution of every endpoint to <endpoint>.hgrm, so two builds can be diffed or plotted:
+ *
+ *   ./mvnw test -Dtest=NoteWorkloadLoadTest -Dbenchmark=true
+ *       [-Dbenchmark.users=64] [-Dbenchmark.notes=100] [-Dbenchmark.clients=16]
+ *       [-Dbenchmark.seconds=60] [-Dbenchmark.warmup-seconds=15] [-Dbenchmark.seed=42]
+ *       [-Dbenchmark.mix=login:2,refresh:3,create:15,get:25,list:25,update:15,delete:10,count:5]
+ *       [-Dbenchmark.report-dir=target/load-test]
+ *
+ * Runs offline on one machine; the load generator shares the CPU with the server, so compare builds
+ * on the same box with the same settings.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class NoteWorkloadLoadTest {
+
+    private static final int USERS = Integer.getInteger("benchmark.users", 64);
+    private static final int NOTES_PER_USER = Integer.getInteger("benchmark.notes", 100);
+    private static final int CLIENTS = Integer.getInteger("benchmark.clients", 16);
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong("benchmark.seconds", 60));
+    private static final Duration WARMUP = Duration.ofSeconds(Long.getLong("benchmark.warmup-seconds", 15));
+    private static final long SEED = Long.getLong("benchmark.seed", 42);
+    private static final String MIX = System.getProperty("benchmark.mix",
+            "login:2,refresh:3,create:15,get:25,list:25,update:15,delete:10,count:5");
+    private static final Path REPORT_DIR = Path.of(System.getProperty("benchmark.report-dir", "target/load-test"));
+
+    private static final int BATCH_SIZE = 500;
+
+    @TempDir
+    static Path dir;
+
+    @DynamicPropertySource
+    static void sqliteFile(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> "jdbc:sqlite:" + dir.resolve("load-test.db"));
+        // schema from the Flyway migrations and the tuned SQLite setup, like production
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "none");
+        registry.add("spring.jpa.show-sql", () -> "false");
+        registry.add("app.sqlite.tuning.enabled", () -> "true");
+        registry.add("app.sqlite.write-queue.enabled", () -> "true");
+    }
+
+    @LocalServerPort
+    private int port;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(30))
+            .build();
+
+    private final Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+    private final Map<Operation, AtomicLong> errors = new EnumMap<>(Operation.class);
+    // "create 429" -> count
+    private final Map<String, AtomicLong> errorStatuses = new ConcurrentHashMap<>();
+
+    @Test
+    void noteWorkload() throws Exception {
+        Mix mix = Mix.parse(MIX);
+        List<List<Account>> accountsPerClient = accounts();
+
+        ExecutorService pool = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            runAll(pool, accountsPerClient, (clientAccounts, random) -> {
+                for (Account account : clientAccounts) {
+                    seed(account);
+                }
+            });
+
+            resetStats();
+            runAll(pool, accountsPerClient, (clientAccounts, random) -> replay(clientAccounts, random, mix, WARMUP));
+            resetStats();
+            runAll(pool, accountsPerClient, (clientAccounts, random) -> replay(clientAccounts, random, mix, DURATION));
+        } finally {
+            pool.shutdownNow();
+        }
+
+        report(mix);
+    }
+
+    // users are dealt out round-robin, each belongs to exactly one client
+    private List<List<Account>> accounts() {
+        List<List<Account>> accountsPerClient = new ArrayList<>();
+        for (int c = 0; c < CLIENTS; c++) {
+            accountsPerClient.add(new ArrayList<>());
+        }
+        String run = Long.toString(SEED, 36);
+        for (int u = 0; u < Math.max(USERS, CLIENTS); u++) {
+            accountsPerClient.get(u % CLIENTS).add(new Account("load-" + run + "-" + u + "@test.com"));
+        }
+        return accountsPerClient;
+    }
+
+    private void runAll(ExecutorService pool, List<List<Account>> accountsPerClient, ClientTask task) throws Exception {
+        List<Future<?>> futures = new ArrayList<>();
+        for (int c = 0; c < CLIENTS; c++) {
+            List<Account> clientAccounts = accountsPerClient.get(c);
+            Random random = new Random(SEED * 31 + c);
+            futures.add(pool.submit(() -> {
+                task.run(clientAccounts, random);
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+
+    private void seed(Account account) throws Exception {
+        expectOk(send(json("POST", "/api/users",
+                ApiFixtures.signup("LoadUser", account.email, ApiFixtures.PASSWORD), null)));
+        login(account);
+
+        for (int from = 0; from < NOTES_PER_USER; from += BATCH_SIZE) {
+            List<Map<String, String>> batch = new ArrayList<>();
+            for (int i = from; i < Math.min(from + BATCH_SIZE, NOTES_PER_USER); i++) {
+                batch.add(ApiFixtures.note("seed note " + i + " for load testing"));
+            }
+            HttpResponse<String> response = expectOk(send(json("POST", "/api/notes/batch", batch, account.accessToken)));
+            for (JsonNode note : objectMapper.readTree(response.body())) {
+                account.noteIds.add(note.get("id").asLong());
+            }
+        }
+    }
+
+    // closed loop: the next operation starts when the previous one has completed
+    private void replay(List<Account> clientAccounts, Random random, Mix mix, Duration duration) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        while (System.nanoTime() < deadline) {
+            Account account = clientAccounts.get(random.nextInt(clientAccounts.size()));
+            Operation operation = mix.next(random);
+            if (operation.needsNote() && account.noteIds.isEmpty()) {
+                operation = Operation.CREATE;
+            }
+            execute(operation, account, random);
+        }
+    }
+
+    private void execute(Operation operation, Account account, Random random) throws Exception {
+        long noteId = account.noteIds.isEmpty() ? 0 : account.noteIds.get(random.nextInt(account.noteIds.size()));
+        HttpRequest request = switch (operation) {
+            case LOGIN -> json("POST", "/api/login", ApiFixtures.credentials(account.email, ApiFixtures.PASSWORD), null);
+            case REFRESH -> json("POST", "/api/refreshtoken", Map.of("refreshToken", account.refreshToken), null);
+            case CREATE -> json("POST", "/api/notes", ApiFixtures.note("note " + random.nextInt()), account.accessToken);
+            case GET -> get("/api/notes/" + noteId, account.accessToken);
+            case LIST -> get("/api/notes?limit=50", account.accessToken);
+            case UPDATE -> json("PUT", "/api/notes/" + noteId, ApiFixtures.note("edited " + random.nextInt()),
+                    account.accessToken);
+            case DELETE -> authorized(HttpRequest.newBuilder(uri("/api/notes/" + noteId)).DELETE(), account.accessToken);
+            case COUNT -> get("/api/notes/count", account.accessToken);
+        };
+
+        long start = System.nanoTime();
+        HttpResponse<String> response;
+        try {
+            response = send(request);
+        } catch (Exception e) {
+            recordError(operation, e.getClass().getSimpleName());
+            return;
+        }
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+
+        if (response.statusCode() >= 300) {
+            recordError(operation, String.valueOf(response.statusCode()));
+            return;
+        }
+        histograms.get(operation).recordValue(micros);
+
+        // keep the client's view of its users in sync with the server
+        switch (operation) {
+            case LOGIN, REFRESH -> updateTokens(account, response);
+            case CREATE -> account.noteIds.add(objectMapper.readTree(response.body()).get("id").asLong());
+            case DELETE -> account.noteIds.remove(Long.valueOf(noteId));
+            default -> { }
+        }
+    }
+
+    private void login(Account account) throws Exception {
+        HttpResponse<String> response = expectOk(send(json("POST", "/api/login",
+                ApiFixtures.credentials(account.email, ApiFixtures.PASSWORD), null)));
+        updateTokens(account, response);
+    }
+
+    private void updateTokens(Account account, HttpResponse<String> response) throws Exception {
+        JsonNode body = objectMapper.readTree(response.body());
+        account.accessToken = body.get("accessToken").asText();
+        account.refreshToken = body.get("refreshToken").asText();
+    }
+
+    private void resetStats() {
+        for (Operation operation : Operation.values()) {
+            // 1 µs .. 1 min, 3 significant digits
+            histograms.put(operation, new ConcurrentHistogram(1, TimeUnit.MINUTES.toMicros(1), 3));
+            errors.put(operation, new AtomicLong());
+        }
+        errorStatuses.clear();
+    }
+
+    private void recordError(Operation operation, String reason) {
+        errors.get(operation).incrementAndGet();
+        errorStatuses.computeIfAbsent(operation.label + " " + reason, key -> new AtomicLong()).incrementAndGet();
+    }
+
+    private void report(Mix mix) throws Exception {
+        Files.createDirectories(REPORT_DIR);
+        Path summary = REPORT_DIR.resolve("report.txt");
+        try (PrintStream out = new PrintStream(Files.newOutputStream(summary))) {
+            printSummary(out, mix);
+        }
+        printSummary(System.out, mix);
+
+        for (Operation operation : Operation.values()) {
+            Path file = REPORT_DIR.resolve(operation.name().toLowerCase() + ".hgrm");
+            try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+                // values in ms
+                histograms.get(operation).outputPercentileDistribution(out, 1000.0);
+            }
+        }
+        System.out.printf("report: %s%n", summary.toAbsolutePath());
+    }
+
+    private void printSummary(PrintStream out, Mix mix) {
+        double seconds = DURATION.toSeconds();
+        out.printf("# users=%d notes/user=%d clients=%d seconds=%d warmup=%d seed=%d%n",
+                Math.max(USERS, CLIENTS), NOTES_PER_USER, CLIENTS, DURATION.toSeconds(), WARMUP.toSeconds(), SEED);
+        out.printf("# mix=%s%n", mix);
+        out.printf("%-26s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                "endpoint", "ok", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+
+        long total = 0;
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = histograms.get(operation);
+            total += histogram.getTotalCount();
+            out.printf("%-26s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    operation.label, histogram.getTotalCount(), errors.get(operation).get(),
+                    histogram.getTotalCount() / seconds,
+                    millis(histogram, 50), millis(histogram, 90), millis(histogram, 99), millis(histogram, 99.9),
+                    histogram.getMaxValue() / 1000.0);
+        }
+        out.printf("%-26s %9d %7s %9.1f%n", "total", total, "", total / seconds);
+
+        errorStatuses.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> out.printf("# error %s: %d%n", entry.getKey(), entry.getValue().get()));
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private HttpRequest json(String method, String path, Object body, String token) throws Exception {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)));
+        return authorized(builder, token);
+    }
+
+    private HttpRequest get(String path, String token) {
+        return authorized(HttpRequest.newBuilder(uri(path)).GET(), token);
+    }
+
+    private HttpRequest authorized(HttpRequest.Builder builder, String token) {
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder.timeout(Duration.ofSeconds(60)).build();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws Exception {
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static HttpResponse<String> expectOk(HttpResponse<String> response) {
+        if (response.statusCode() >= 300) {
+            throw new IllegalStateException(response.request().uri() + " returned " + response.statusCode()
+                    + ": " + response.body());
+        }
+        return response;
+    }
+
+    private enum Operation {
+        LOGIN("POST /api/login", false),
+        REFRESH("POST /api/refreshtoken", false),
+        CREATE("POST /api/notes", false),
+        GET("GET /api/notes/{id}", true),
+        LIST("GET /api/notes", false),
+        UPDATE("PUT /api/notes/{id}", true),
+        DELETE("DELETE /api/notes/{id}", true),
+        COUNT("GET /api/notes/count", false);
+
+        private final String label;
+        private final boolean needsNote;
+
+        Operation(String label, boolean needsNote) {
+            this.label = label;
+            this.needsNote = needsNote;
+        }
+
+        boolean needsNote() {
+            return needsNote;
+        }
+    }
+
+    // weighted choice, "create:15,get:25" -> create 15/40 of the time
+    private record Mix(Operation[] operations, int[] cumulativeWeights, String spec) {
+
+        static Mix parse(String spec) {
+            List<Operation> operations = new ArrayList<>();
+            List<Integer> cumulative = new ArrayList<>();
+            int total = 0;
+            for (String part : spec.split(",")) {
+                String[] entry = part.trim().split(":");
+                int weight = Integer.parseInt(entry[1].trim());
+                if (weight > 0) {
+                    total += weight;
+                    operations.add(Operation.valueOf(entry[0].trim().toUpperCase()));
+                    cumulative.add(total);
+                }
+            }
+            return new Mix(operations.toArray(Operation[]::new),
+                    cumulative.stream().mapToInt(Integer::intValue).toArray(), spec);
+        }
+
+        Operation next(Random random) {
+            int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+            for (int i = 0; i < cumulativeWeights.length; i++) {
+                if (pick < cumulativeWeights[i]) {
+                    return operations[i];
+                }
+            }
+            throw new IllegalStateException("unreachable");
+        }
+
+        @Override
+        public String toString() {
+            return spec;
+        }
+    }
+
+    // only ever touched by the client thread that owns it
+    private static final class Account {
+
+        private final String email;
+        private final List<Long> noteIds = new ArrayList<>();
+        private String accessToken;
+        private String refreshToken;
+
+        Account(String email) {
+            this.email = email;
+        }
+    }
+
+    @FunctionalInterface
+    private interface ClientTask {
+        void run(List<Account> accounts, Random random) throws Exception;
+    }
+}
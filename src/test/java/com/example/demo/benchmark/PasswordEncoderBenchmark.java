@@ -0,0 +1,64 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.security.PasswordEncoders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Login verify cost per password setting (security.password.algorithm:cost), measured through the same
+ * DelegatingPasswordEncoder the application uses. verifyLatency reports p50/p99 of a single check,
+ * verifyThroughput the checks per second with all cores busy (the login ceiling of this machine).
+ *
+ * Run with: ./mvnw -Pbenchmark test -Djmh.args="PasswordEncoderBenchmark -p setting=bcrypt:12,argon2:19456"
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 10)
+public class PasswordEncoderBenchmark {
+
+    private static final String PASSWORD = "correct horse battery staple";
+
+    @Param({"bcrypt:10", "bcrypt:11", "bcrypt:12", "bcrypt:13",
+            "argon2:19456", "argon2:47104",
+            "pbkdf2:310000", "pbkdf2:600000"})
+    public String setting;
+
+    private PasswordEncoder encoder;
+    private String hash;
+
+    @Setup
+    public void setUp() {
+        String[] parts = setting.split(":");
+        encoder = PasswordEncoders.delegating(parts[0], Integer.parseInt(parts[1]));
+        hash = encoder.encode(PASSWORD);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public boolean verifyLatency() {
+        return encoder.matches(PASSWORD, hash);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Threads(Threads.MAX)
+    public boolean verifyThroughput() {
+        return encoder.matches(PASSWORD, hash);
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.model.User;
+import com.example.demo.repository.NoteRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.service.NoteService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mixed note traffic (reads: GET /api/notes page query, writes: createNote) from many threads
+ * against a temporary SQLite file migrated by Flyway. Run once with the tuned setup
+ * (WAL, single writer, group commit) and once with a plain Hikari pool to compare:
+ *
+ *   ./mvnw test -Dtest=SqliteWriteBenchmark -Dbenchmark=true [-Dbenchmark.sqlite.tuning=false]
+ *       [-Dbenchmark.threads=64] [-Dbenchmark.write-ratio=0.2] [-Dbenchmark.seconds=30]
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest
+class SqliteWriteBenchmark {
+
+    private static final boolean TUNING = Boolean.parseBoolean(System.getProperty("benchmark.sqlite.tuning", "true"));
+    private static final int THREADS = Integer.getInteger("benchmark.threads", 64);
+    private static final int USERS = Integer.getInteger("benchmark.users", 100);
+    private static final double WRITE_RATIO = Double.parseDouble(System.getProperty("benchmark.write-ratio", "0.2"));
+    private static final long SECONDS = Long.getLong("benchmark.seconds", 30);
+
+    @TempDir
+    static Path dir;
+
+    @DynamicPropertySource
+    static void sqliteFile(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> "jdbc:sqlite:" + dir.resolve("benchmark.db"));
+        // schema from the Flyway migrations, like production
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "none");
+        registry.add("spring.jpa.show-sql", () -> "false");
+        registry.add("app.sqlite.tuning.enabled", () -> TUNING);
+        registry.add("app.sqlite.write-queue.enabled", () -> TUNING);
+    }
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void mixedReadWriteTraffic() throws Exception {
+        List<Integer> userIds = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            userIds.add(userRepository.save(new User("bench" + i, "bench" + i + "@test.com", "x")).getId());
+        }
+
+        ConcurrentLinkedQueue<Long> reads = new ConcurrentLinkedQueue<>();
+        ConcurrentLinkedQueue<Long> writes = new ConcurrentLinkedQueue<>();
+        AtomicLong errors = new AtomicLong();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SECONDS);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            pool.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    Integer userId = userIds.get(random.nextInt(userIds.size()));
+                    boolean write = random.nextDouble() < WRITE_RATIO;
+                    long start = System.nanoTime();
+                    try {
+                        if (write) {
+                            noteService.createNote(userId, "benchmark note");
+                            writes.add(System.nanoTime() - start);
+                        } else {
+                            noteRepository.findPageByUserId(userId, 0L, Limit.of(20));
+                            reads.add(System.nanoTime() - start);
+                        }
+                    } catch (RuntimeException e) {
+                        // SQLITE_BUSY and pool timeouts end up here
+                        errors.incrementAndGet();
+                    }
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(SECONDS + 60, TimeUnit.SECONDS);
+
+        System.out.printf("%nSQLite tuning=%s, %d threads, %.0f%% writes, %ds%n",
+                TUNING, THREADS, WRITE_RATIO * 100, SECONDS);
+        print("reads", reads);
+        print("writes", writes);
+        System.out.printf("errors: %d%n", errors.get());
+    }
+
+    private static void print(String label, ConcurrentLinkedQueue<Long> latencies) {
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        if (sorted.length == 0) {
+            System.out.printf("%-8s no successful operations%n", label);
+            return;
+        }
+        System.out.printf("%-8s %10.1f ops/s   p50 %8.2f ms   p99 %8.2f ms   max %8.2f ms%n",
+                label, sorted.length / (double) SECONDS,
+                percentile(sorted, 50), percentile(sorted, 99), percentile(sorted, 100));
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.ApiFixtures;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop load against a running server: N clients each repeat GET /api/notes (a JDBC read)
+ * for a fixed time and the run reports throughput and latency percentiles per concurrency level.
+ * Run it once against the default platform-thread server and once against the virtual-threads profile:
+ *
+ *   ./mvnw spring-boot:run
+ *   ./mvnw -Pjava21 spring-boot:run -Dspring-boot.run.profiles=virtual-threads
+ *
+ *   ./mvnw test -Dtest=VirtualThreadLoadBenchmark -Dbenchmark=true
+ *       [-Dbenchmark.url=http://localhost:8080] [-Dbenchmark.concurrency=1000,10000] [-Dbenchmark.seconds=30]
+ *
+ * 10k clients need a matching open-files limit (ulimit -n) on both sides.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class VirtualThreadLoadBenchmark {
+
+    private static final String BASE_URL = System.getProperty("benchmark.url", "http://localhost:8080");
+    private static final int[] CONCURRENCY = Arrays.stream(System.getProperty("benchmark.concurrency", "1000,10000")
+            .split(",")).mapToInt(value -> Integer.parseInt(value.trim())).toArray();
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong("benchmark.seconds", 30));
+    private static final Duration WARMUP = Duration.ofSeconds(Long.getLong("benchmark.warmup-seconds", 10));
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(30))
+            .build();
+
+    @Test
+    void notesListUnderConcurrentClients() throws Exception {
+        String token = registerAndLogin();
+        for (int i = 0; i < 20; i++) {
+            send(post("/api/notes", ApiFixtures.note("load note " + i), token));
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(BASE_URL + "/api/notes?limit=20"))
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(60))
+                .GET()
+                .build();
+
+        run(request, Math.min(CONCURRENCY[0], 100), WARMUP);
+
+        System.out.printf("%n%-12s %12s %10s %10s %10s %10s %8s%n",
+                "clients", "req/s", "p50 ms", "p99 ms", "max ms", "ok", "errors");
+        for (int clients : CONCURRENCY) {
+            Result result = run(request, clients, DURATION);
+            System.out.printf("%-12d %12.1f %10.1f %10.1f %10.1f %10d %8d%n",
+                    clients, result.ok / (double) DURATION.toSeconds(),
+                    result.percentile(50), result.percentile(99), result.percentile(100),
+                    result.ok, result.errors);
+        }
+    }
+
+    // every client sends its next request as soon as the previous one completed
+    private Result run(HttpRequest request, int clients, Duration duration) {
+        long deadline = System.nanoTime() + duration.toNanos();
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        AtomicLong ok = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+
+        List<CompletableFuture<Void>> loops = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            loops.add(loop(request, deadline, latencies, ok, errors));
+        }
+        CompletableFuture.allOf(loops.toArray(CompletableFuture[]::new)).join();
+
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        return new Result(sorted, ok.get(), errors.get());
+    }
+
+    private CompletableFuture<Void> loop(HttpRequest request, long deadline, ConcurrentLinkedQueue<Long> latencies,
+                                         AtomicLong ok, AtomicLong errors) {
+        if (System.nanoTime() >= deadline) {
+            return CompletableFuture.completedFuture(null);
+        }
+        long start = System.nanoTime();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .handle((response, failure) -> {
+                    if (failure == null && response.statusCode() == 200) {
+                        latencies.add(System.nanoTime() - start);
+                        ok.incrementAndGet();
+                    } else {
+                        errors.incrementAndGet();
+                    }
+                    return null;
+                })
+                .thenCompose(ignored -> loop(request, deadline, latencies, ok, errors));
+    }
+
+    private String registerAndLogin() throws Exception {
+        String email = "load" + System.currentTimeMillis() + "@test.com";
+        send(post("/api/users", ApiFixtures.signup("LoadUser", email, ApiFixtures.PASSWORD), null));
+        HttpResponse<String> login = send(post("/api/login", ApiFixtures.credentials(email, ApiFixtures.PASSWORD), null));
+        JsonNode json = objectMapper.readTree(login.body());
+        return json.get("accessToken").asText();
+    }
+
+    private HttpRequest post(String path, Object body, String token) throws Exception {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(BASE_URL + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)));
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder.build();
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws Exception {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 300) {
+            throw new IllegalStateException(request.uri() + " returned " + response.statusCode() + ": " + response.body());
+        }
+        return response;
+    }
+
+    private record Result(long[] sortedNanos, long ok, long errors) {
+
+        double percentile(double percentile) {
+            if (sortedNanos.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100.0 * sortedNanos.length) - 1;
+            return sortedNanos[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.demo.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncConfigTest {
+
+    private final TaskDecorator decorator = new AsyncConfig().securityContextTaskDecorator();
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void decoratedTask_ShouldSeeCallerAuthenticationOnlyWhileRunning() throws Exception {
+        Authentication caller = new UsernamePasswordAuthenticationToken("user@test.com", null, Collections.emptyList());
+        SecurityContextHolder.getContext().setAuthentication(caller);
+
+        AtomicReference<Authentication> seen = new AtomicReference<>();
+        AtomicReference<Authentication> after = new AtomicReference<>();
+        Runnable task = decorator.decorate(() -> seen.set(SecurityContextHolder.getContext().getAuthentication()));
+
+        Thread worker = new Thread(() -> {
+            task.run();
+            after.set(SecurityContextHolder.getContext().getAuthentication());
+        });
+        worker.start();
+        worker.join();
+
+        assertSame(caller, seen.get());
+        // the worker thread must not keep the caller's identity for its next task
+        assertNull(after.get());
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.demo.config;
+
+import com.example.demo.ApiFixtures;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// the production setup: a SQLite file with the writer/reader pools and the write queue, no test transaction
+@SpringBootTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=none",
+        "app.sqlite.tuning.enabled=true",
+        "app.sqlite.write-queue.enabled=true"
+})
+@AutoConfigureMockMvc
+class SqliteDataSourceConfigIntegrationTest {
+
+    @TempDir
+    static Path dir;
+
+    @DynamicPropertySource
+    static void sqliteFile(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> "jdbc:sqlite:" + dir.resolve("tuning-test.db"));
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    @Qualifier("sqliteReadDataSource")
+    private DataSource readDataSource;
+
+    private ApiFixtures api;
+
+    @BeforeEach
+    void setUp() {
+        api = new ApiFixtures(mockMvc, objectMapper);
+    }
+
+    // each of these requests reads (reader pool) before it writes: the writes must not stay on the reader
+    @Test
+    void requestsThatReadThenWrite_ShouldWriteThroughTheWriter() throws Exception {
+        api.register("tuning@test.com");
+        JsonNode tokens = api.login("tuning@test.com");
+        String accessToken = tokens.get("accessToken").asText();
+
+        mockMvc.perform(post("/api/refreshtoken")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\": \"" + tokens.get("refreshToken").asText() + "\"}"))
+                .andExpect(status().isOk());
+
+        api.createNote(accessToken, "Queued write");
+        mockMvc.perform(get("/api/notes")
+                        .header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+
+        mockMvc.perform(post("/api/logout")
+                        .header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void readerConnections_ShouldRejectWrites() {
+        JdbcTemplate reader = new JdbcTemplate(readDataSource);
+
+        assertThrows(DataAccessException.class,
+                () -> reader.update("UPDATE users SET note_count = note_count WHERE id = 0"));
+    }
+}
@@ -0,0 +1,317 @@
+package com.example.demo.controller;
+
+import com.example.demo.ApiFixtures;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class NoteControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private ApiFixtures api;
+
+    @BeforeEach
+    void setUp() {
+        api = new ApiFixtures(mockMvc, objectMapper);
+    }
+
+    @Test
+    void getMyNotes_ShouldPageWithCursor() throws Exception {
+        String token = api.registerAndLogin("pager@test.com");
+        for (int i = 1; i <= 3; i++) {
+            api.createNote(token, "Note " + i);
+        }
+
+        // first page is full, so it carries a cursor
+        MvcResult firstPage = mockMvc.perform(get("/api/notes")
+                        .param("limit", "2")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(header().exists(NoteController.NEXT_CURSOR_HEADER))
+                .andReturn();
+
+        String cursor = firstPage.getResponse().getHeader(NoteController.NEXT_CURSOR_HEADER);
+
+        // last page is partial, so there is no cursor
+        mockMvc.perform(get("/api/notes")
+                        .param("limit", "2")
+                        .param("after", cursor)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].content").value("Note 3"))
+                .andExpect(header().doesNotExist(NoteController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void getMyNotesCount_ShouldFollowCreateAndDelete() throws Exception {
+        String token = api.registerAndLogin("counter@test.com");
+        long firstId = api.createNote(token, "First");
+        api.createNote(token, "Second");
+
+        mockMvc.perform(get("/api/notes/count")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(content().string("2"));
+
+        mockMvc.perform(delete("/api/notes/" + firstId)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/notes/count")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(content().string("1"));
+    }
+
+    @Test
+    void batchEndpoints_ShouldCreateUpdateAndDeleteInOneCall() throws Exception {
+        String token = api.registerAndLogin("batch@test.com");
+
+        MvcResult created = mockMvc.perform(post("/api/notes/batch")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"content\": \"A\"}, {\"content\": \"B\"}, {\"content\": \"C\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andReturn();
+
+        JsonNode notes = objectMapper.readTree(created.getResponse().getContentAsString());
+        long first = notes.get(0).get("id").asLong();
+        long second = notes.get(1).get("id").asLong();
+
+        mockMvc.perform(put("/api/notes/batch")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"id\": " + first + ", \"content\": \"A2\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].content").value("A2"));
+
+        mockMvc.perform(delete("/api/notes/batch")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + first + ", " + second + "]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted").value(2));
+
+        mockMvc.perform(get("/api/notes/count")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(content().string("1"));
+    }
+
+    @Test
+    void batchDelete_WithForeignNote_ShouldRejectWholeBatch() throws Exception {
+        String ownerToken = api.registerAndLogin("batch-owner@test.com");
+        long foreignId = api.createNote(ownerToken, "Not yours");
+
+        String attackerToken = api.registerAndLogin("batch-attacker@test.com");
+        long ownId = api.createNote(attackerToken, "Mine");
+
+        mockMvc.perform(delete("/api/notes/batch")
+                        .header("Authorization", "Bearer " + attackerToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + ownId + ", " + foreignId + "]"))
+                .andExpect(status().isForbidden());
+
+        // nothing was deleted
+        mockMvc.perform(get("/api/notes/count")
+                        .header("Authorization", "Bearer " + attackerToken))
+                .andExpect(content().string("1"));
+    }
+
+    @Test
+    void updateAndDelete_ShouldTellMissingFromForeignNotes() throws Exception {
+        String ownerToken = api.registerAndLogin("single-owner@test.com");
+        long noteId = api.createNote(ownerToken, "Original");
+        String otherToken = api.registerAndLogin("single-other@test.com");
+
+        mockMvc.perform(put("/api/notes/" + noteId)
+                        .header("Authorization", "Bearer " + otherToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"content\": \"Hijacked\"}"))
+                .andExpect(status().isForbidden());
+
+        mockMvc.perform(delete("/api/notes/" + (noteId + 1000))
+                        .header("Authorization", "Bearer " + ownerToken))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(put("/api/notes/" + noteId)
+                        .header("Authorization", "Bearer " + ownerToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"content\": \"Edited\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content").value("Edited"));
+
+        mockMvc.perform(get("/api/notes/" + noteId)
+                        .header("Authorization", "Bearer " + ownerToken))
+                .andExpect(jsonPath("$.content").value("Edited"));
+    }
+
+    @Test
+    void getNoteById_WithCurrentEtag_ShouldReturn304() throws Exception {
+        String token = api.registerAndLogin("etag@test.com");
+        long id = api.createNote(token, "Cached");
+
+        MvcResult first = mockMvc.perform(get("/api/notes/" + id)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"0\""))
+                .andReturn();
+        String etag = first.getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/notes/" + id)
+                        .header("Authorization", "Bearer " + token)
+                        .header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        mockMvc.perform(put("/api/notes/" + id)
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("content", "Changed"))))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""));
+
+        mockMvc.perform(get("/api/notes/" + id)
+                        .header("Authorization", "Bearer " + token)
+                        .header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content").value("Changed"));
+    }
+
+    @Test
+    void updateNote_WithStaleIfMatch_ShouldReturn412() throws Exception {
+        String token = api.registerAndLogin("if-match@test.com");
+        long id = api.createNote(token, "Version 0");
+
+        mockMvc.perform(put("/api/notes/" + id)
+                        .header("Authorization", "Bearer " + token)
+                        .header("If-Match", "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("content", "Version 1"))))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""));
+
+        // second writer still holds version 0
+        mockMvc.perform(put("/api/notes/" + id)
+                        .header("Authorization", "Bearer " + token)
+                        .header("If-Match", "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("content", "Lost update"))))
+                .andExpect(status().isPreconditionFailed());
+
+        mockMvc.perform(get("/api/notes/" + id)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(jsonPath("$.content").value("Version 1"));
+    }
+
+    @Test
+    void getMyNotes_WithCurrentEtag_ShouldReturn304UntilNotesChange() throws Exception {
+        String token = api.registerAndLogin("list-etag@test.com");
+        api.createNote(token, "First");
+
+        MvcResult first = mockMvc.perform(get("/api/notes")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn();
+        String etag = first.getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/notes")
+                        .header("Authorization", "Bearer " + token)
+                        .header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        api.createNote(token, "Second");
+
+        mockMvc.perform(get("/api/notes")
+                        .header("Authorization", "Bearer " + token)
+                        .header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)));
+    }
+
+    @Test
+    void getMyNoteChanges_ShouldReturnOnlyChangesSinceCursor() throws Exception {
+        String token = api.registerAndLogin("changes@test.com");
+        long kept = api.createNote(token, "Kept");
+        long edited = api.createNote(token, "Before edit");
+        long removed = api.createNote(token, "Removed");
+
+        MvcResult full = mockMvc.perform(get("/api/notes/changes")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changed", hasSize(3)))
+                .andExpect(jsonPath("$.deleted", hasSize(0)))
+                .andExpect(jsonPath("$.hasMore").value(false))
+                .andReturn();
+        long cursor = objectMapper.readTree(full.getResponse().getContentAsString()).get("cursor").asLong();
+
+        mockMvc.perform(put("/api/notes/" + edited)
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("content", "After edit"))))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/api/notes/" + removed)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        MvcResult delta = mockMvc.perform(get("/api/notes/changes")
+                        .param("since", String.valueOf(cursor))
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changed", hasSize(1)))
+                .andExpect(jsonPath("$.changed[0].id").value(edited))
+                .andExpect(jsonPath("$.changed[0].content").value("After edit"))
+                .andExpect(jsonPath("$.deleted", hasSize(1)))
+                .andExpect(jsonPath("$.deleted[0]").value(removed))
+                .andReturn();
+        long next = objectMapper.readTree(delta.getResponse().getContentAsString()).get("cursor").asLong();
+
+        // nothing changed since, "kept" is never sent again
+        mockMvc.perform(get("/api/notes/changes")
+                        .param("since", String.valueOf(next))
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changed", hasSize(0)))
+                .andExpect(jsonPath("$.deleted", hasSize(0)))
+                .andExpect(jsonPath("$.cursor").value(next));
+    }
+
+    @Test
+    void streamMyNotes_ShouldOpenEventStreamForAuthenticatedUserOnly() throws Exception {
+        String token = api.registerAndLogin("stream@test.com");
+
+        mockMvc.perform(get("/api/notes/stream"))
+                .andExpect(status().isForbidden());
+
+        mockMvc.perform(get("/api/notes/stream")
+                        .header("Authorization", "Bearer " + token)
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM));
+    }
+}
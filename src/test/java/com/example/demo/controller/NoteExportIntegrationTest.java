@@ -0,0 +1,97 @@
+package com.example.demo.controller;
+
+import com.example.demo.ApiFixtures;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// the export body is written on an async thread with its own connection: a SQLite file instead of
+// the per-connection in-memory database, and no test transaction, so that thread sees the notes
+@SpringBootTest(properties = "spring.jpa.hibernate.ddl-auto=none")
+@AutoConfigureMockMvc
+class NoteExportIntegrationTest {
+
+    @TempDir
+    static Path dir;
+
+    @DynamicPropertySource
+    static void sqliteFile(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> "jdbc:sqlite:" + dir.resolve("export-test.db"));
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private ApiFixtures api;
+
+    @BeforeEach
+    void setUp() {
+        api = new ApiFixtures(mockMvc, objectMapper);
+    }
+
+    @Test
+    void exportMyNotes_ShouldStreamOwnNotesAsNdjson() throws Exception {
+        String token = api.registerAndLogin("export@test.com");
+        long first = api.createNote(token, "First export");
+        long second = api.createNote(token, "Second export");
+        api.createNote(api.registerAndLogin("export-other@test.com"), "Not mine");
+
+        mockMvc.perform(get("/api/notes/export"))
+                .andExpect(status().isForbidden());
+
+        List<JsonNode> lines = export(token);
+
+        assertEquals(2, lines.size());
+        assertEquals(first, lines.get(0).get("id").asLong());
+        assertEquals("First export", lines.get(0).get("content").asText());
+        assertEquals(second, lines.get(1).get("id").asLong());
+        assertEquals("Second export", lines.get(1).get("content").asText());
+    }
+
+    @Test
+    void exportMyNotes_WithoutNotes_ShouldReturnEmptyStream() throws Exception {
+        String token = api.registerAndLogin("export-empty@test.com");
+        api.createNote(api.registerAndLogin("export-busy@test.com"), "Someone else's");
+
+        assertEquals(List.of(), export(token));
+    }
+
+    // one JSON object per line, the body is written in the async dispatch
+    private List<JsonNode> export(String token) throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/notes/export")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(NoteController.NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : body.lines().toList()) {
+            lines.add(objectMapper.readTree(line));
+        }
+        return lines;
+    }
+}
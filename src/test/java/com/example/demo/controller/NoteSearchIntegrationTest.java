@@ -0,0 +1,146 @@
+package com.example.demo.controller;
+
+import com.example.demo.ApiFixtures;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// schema from the Flyway migrations only: the FTS table and its triggers live on the notes table,
+// which Hibernate's create-drop would replace
+@SpringBootTest(properties = "spring.jpa.hibernate.ddl-auto=none")
+@AutoConfigureMockMvc
+@Transactional
+class NoteSearchIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private ApiFixtures api;
+
+    @BeforeEach
+    void setUp() {
+        api = new ApiFixtures(mockMvc, objectMapper);
+    }
+
+    @Test
+    void search_ShouldRankOwnNotesAndIgnoreOtherUsers() throws Exception {
+        String token = api.registerAndLogin("searcher@test.com");
+        String otherToken = api.registerAndLogin("other-searcher@test.com");
+
+        api.createNote(token, "Buy milk");
+        api.createNote(token, "Milk, milk and more milk for the pancakes");
+        api.createNote(token, "Call the bank");
+        api.createNote(otherToken, "Milk delivery schedule");
+
+        mockMvc.perform(get("/api/notes/search")
+                        .param("q", "milk")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].content").value("Milk, milk and more milk for the pancakes"))
+                .andExpect(jsonPath("$[1].content").value("Buy milk"));
+    }
+
+    @Test
+    void search_ShouldMatchAllWordsAndLastOneAsPrefix() throws Exception {
+        String token = api.registerAndLogin("prefix@test.com");
+        api.createNote(token, "Quarterly report draft");
+        api.createNote(token, "Report for the quarter");
+
+        mockMvc.perform(get("/api/notes/search")
+                        .param("q", "report quart")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)));
+
+        // word order does not matter, the last word "quarter" is a prefix of "Quarterly"
+        mockMvc.perform(get("/api/notes/search")
+                        .param("q", "draft quarter")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].content").value("Quarterly report draft"));
+
+        // only the last word is a prefix, "quart" as an earlier word has to match a whole word
+        mockMvc.perform(get("/api/notes/search")
+                        .param("q", "quart report")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+
+        // query syntax characters are dropped, not passed to MATCH
+        mockMvc.perform(get("/api/notes/search")
+                        .param("q", "\"*:(")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    void search_ShouldFollowUpdatesAndDeletes() throws Exception {
+        String token = api.registerAndLogin("sync@test.com");
+        long id = api.createNote(token, "Old wording");
+
+        mockMvc.perform(put("/api/notes/" + id)
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("content", "New wording"))))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/notes/search")
+                        .param("q", "old")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(jsonPath("$", hasSize(0)));
+        mockMvc.perform(get("/api/notes/search")
+                        .param("q", "new")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(jsonPath("$", hasSize(1)));
+
+        mockMvc.perform(delete("/api/notes/" + id)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/notes/search")
+                        .param("q", "wording")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    void search_ShouldPageWithOffset() throws Exception {
+        String token = api.registerAndLogin("search-pager@test.com");
+        for (int i = 1; i <= 3; i++) {
+            api.createNote(token, "Meeting notes " + i);
+        }
+
+        mockMvc.perform(get("/api/notes/search")
+                        .param("q", "meeting")
+                        .param("limit", "2")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(header().string(NoteController.NEXT_OFFSET_HEADER, "2"));
+
+        mockMvc.perform(get("/api/notes/search")
+                        .param("q", "meeting")
+                        .param("limit", "2")
+                        .param("offset", "2")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(header().doesNotExist(NoteController.NEXT_OFFSET_HEADER));
+    }
+}
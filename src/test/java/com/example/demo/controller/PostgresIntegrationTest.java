@@ -0,0 +1,108 @@
+package com.example.demo.controller;
+
+import com.example.demo.ApiFixtures;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// same note flows as on SQLite, on the postgres profile with the Flyway schema (needs Docker)
+@SpringBootTest(properties = "spring.jpa.hibernate.ddl-auto=none")
+@AutoConfigureMockMvc
+@ActiveProfiles("postgres")
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional
+class PostgresIntegrationTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private ApiFixtures api;
+
+    @BeforeEach
+    void setUp() {
+        api = new ApiFixtures(mockMvc, objectMapper);
+    }
+
+    @Test
+    void batchCreate_ShouldUseSequenceBlocksAndPageByUser() throws Exception {
+        String token = api.registerAndLogin("pg-notes@test.com");
+
+        MvcResult created = mockMvc.perform(post("/api/notes/batch")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"content\": \"A\"}, {\"content\": \"B\"}, {\"content\": \"C\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andReturn();
+
+        // consecutive ids from one reserved block
+        JsonNode notes = objectMapper.readTree(created.getResponse().getContentAsString());
+        long first = notes.get(0).get("id").asLong();
+        assertEquals(first + 1, notes.get(1).get("id").asLong());
+        assertEquals(first + 2, notes.get(2).get("id").asLong());
+
+        mockMvc.perform(get("/api/notes")
+                        .param("limit", "2")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(header().string(NoteController.NEXT_CURSOR_HEADER, String.valueOf(first + 1)));
+
+        mockMvc.perform(get("/api/notes/count")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(content().string("3"));
+    }
+
+    @Test
+    void updateAndDelete_ShouldBeOwnershipChecked() throws Exception {
+        String ownerToken = api.registerAndLogin("pg-owner@test.com");
+        String otherToken = api.registerAndLogin("pg-other@test.com");
+
+        MvcResult created = mockMvc.perform(post("/api/notes")
+                        .header("Authorization", "Bearer " + ownerToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"content\": \"Private\"}"))
+                .andExpect(status().isOk())
+                .andReturn();
+        long id = objectMapper.readTree(created.getResponse().getContentAsString()).get("id").asLong();
+
+        mockMvc.perform(put("/api/notes/" + id)
+                        .header("Authorization", "Bearer " + otherToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"content\": \"Hacked\"}"))
+                .andExpect(status().isForbidden());
+
+        mockMvc.perform(delete("/api/notes/" + id)
+                        .header("Authorization", "Bearer " + ownerToken))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/notes/" + id)
+                        .header("Authorization", "Bearer " + ownerToken))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -1,18 +1,35 @@
 package com.example.demo.controller;
 
+import com.example.demo.ApiFixtures;
 import com.example.demo.dto.CreateUserRequest;
 import com.example.demo.dto.LoginRequest;
+import com.example.demo.model.User;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.security.JwtAuthenticationFilter;
+import com.example.demo.security.RateLimitFilter;
+import com.example.demo.security.UserRateLimitFilter;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -27,12 +44,50 @@ class SecurityIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private SecurityFilterChain securityFilterChain;
+
+    private ApiFixtures api;
+
+    @BeforeEach
+    void setUp() {
+        api = new ApiFixtures(mockMvc, objectMapper);
+    }
+
     @Test
     void accessProtectedResource_WithoutToken_ShouldReturn403() throws Exception {
         mockMvc.perform(get("/api/notes"))
                 .andExpect(status().isForbidden());
     }
 
+    @Test
+    void prometheusEndpoint_OnTheApplicationPort_ShouldNotBeOpen() throws Exception {
+        // only the management port (internal address) serves it without a token
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void rateLimitFilters_ShouldSurroundTheJwtFilter() {
+        List<Class<?>> filters = securityFilterChain.getFilters().stream()
+                .<Class<?>>map(Object::getClass)
+                .toList();
+
+        // client IP limits before token verification, the per-user limit once the user is known
+        int jwt = filters.indexOf(JwtAuthenticationFilter.class);
+        assertEquals(jwt - 1, filters.indexOf(RateLimitFilter.class));
+        assertEquals(jwt + 1, filters.indexOf(UserRateLimitFilter.class));
+    }
+
     @Test
     void fullAuthFlow_RegisterLoginAndAccessProtectedResource() throws Exception {
         // 1. Register
@@ -117,12 +172,16 @@ class SecurityIntegrationTest {
         String tokenA = objectMapper.readTree(resultA.getResponse().getContentAsString())
                 .get("accessToken").asText();
 
-        // 3. СТВОРЮЄМО НОТАТКУ від імені Жертви (ВАЖЛИВО: тепер нотатка ID=1 існує в базі)
-        mockMvc.perform(post("/api/notes")
+        // 3. СТВОРЮЄМО НОТАТКУ від імені Жертви (ids are handed out in blocks, so read the real one)
+        MvcResult noteResult = mockMvc.perform(post("/api/notes")
                 .header("Authorization", "Bearer " + tokenA)
                 .contentType(MediaType.APPLICATION_JSON)
                 .content("{\"content\": \"Secret Note of Victim\"}")) // JSON тіло запиту
-                .andExpect(status().isOk()); // або isCreated() залежно від контролера
+                .andExpect(status().isOk()) // або isCreated() залежно від контролера
+                .andReturn();
+
+        long noteId = objectMapper.readTree(noteResult.getResponse().getContentAsString())
+                .get("id").asLong();
 
         // 4. Реєструємо "Атакувальника" (User B)
         CreateUserRequest userB = new CreateUserRequest();
@@ -149,10 +208,141 @@ class SecurityIntegrationTest {
         String tokenB = objectMapper.readTree(resultB.getResponse().getContentAsString())
                 .get("accessToken").asText();
 
-        // 6. АТАКА: Атакувальник намагається отримати доступ до нотатки ID 1
+        // 6. АТАКА: Атакувальник намагається отримати доступ до нотатки Жертви
         // Тепер нотатка існує, але вона чужа -> тому має бути 403 Forbidden!
-        mockMvc.perform(get("/api/notes/1")
+        mockMvc.perform(get("/api/notes/" + noteId)
                         .header("Authorization", "Bearer " + tokenB))
                 .andExpect(status().isForbidden());
     }
-}
\ No newline at end of file
+
+    @Test
+    void login_WithLegacyHash_ShouldRehashWithCurrentEncoder() throws Exception {
+        // hash stored before {id} prefixes, and with a lower cost than configured
+        String legacy = new BCryptPasswordEncoder(4).encode("legacyPass123");
+        userRepository.save(new User("LegacyUser", "legacy@test.com", legacy));
+
+        LoginRequest login = new LoginRequest();
+        login.setEmail("legacy@test.com");
+        login.setPassword("legacyPass123");
+
+        mockMvc.perform(post("/api/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(login)))
+                .andExpect(status().isOk());
+
+        String stored = jdbcTemplate.queryForObject(
+                "SELECT password FROM users WHERE email = ?", String.class, "legacy@test.com");
+        assertTrue(stored.startsWith("{bcrypt}$2a$12$"));
+
+        // the new hash verifies as well
+        mockMvc.perform(post("/api/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(login)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void refreshToken_ShouldRotateAndRejectReuse() throws Exception {
+        api.register("refresh@test.com");
+        String refreshToken = api.login("refresh@test.com").get("refreshToken").asText();
+
+        // only the hash is stored
+        Integer rawStored = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM refresh_tokens WHERE token_hash = ?", Integer.class, refreshToken);
+        assertEquals(0, rawStored);
+
+        MvcResult refreshResult = mockMvc.perform(post("/api/refreshtoken")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\": \"" + refreshToken + "\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accessToken").isNotEmpty())
+                .andReturn();
+        String rotated = objectMapper.readTree(refreshResult.getResponse().getContentAsString())
+                .get("refreshToken").asText();
+        assertNotEquals(refreshToken, rotated);
+
+        // the old token was used up by the rotation
+        mockMvc.perform(post("/api/refreshtoken")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\": \"" + refreshToken + "\"}"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(post("/api/refreshtoken")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\": \"" + rotated + "\"}"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void logout_ShouldRevokeAccessTokenImmediately() throws Exception {
+        String accessToken = api.registerAndLogin("logout@test.com");
+
+        mockMvc.perform(post("/api/logout")
+                        .header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isOk());
+
+        // signature and expiry are still fine, but the token was revoked
+        mockMvc.perform(get("/api/notes")
+                        .header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void logout_WithoutToken_ShouldReturn401() throws Exception {
+        mockMvc.perform(post("/api/logout"))
+                .andExpect(status().isUnauthorized());
+
+        mockMvc.perform(post("/api/logout")
+                        .header("Authorization", "Bearer"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void deleteUser_ShouldRemoveTheAccountWithItsNotes() throws Exception {
+        String adminToken = api.registerAndLogin("admin@test.com");
+        String userToken = api.registerAndLogin("deleted@test.com");
+        api.createNote(userToken, "Gone with the account");
+        Integer userId = userRepository.findByEmail("deleted@test.com").orElseThrow().getId();
+
+        mockMvc.perform(delete("/api/users/" + userId)
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk());
+
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM notes WHERE user_id = ?", Integer.class, userId));
+        mockMvc.perform(get("/api/notes")
+                        .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(ApiFixtures.credentials("deleted@test.com", ApiFixtures.PASSWORD))))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(delete("/api/users/" + userId)
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void authenticatedRequest_ShouldRecordVerificationTimers() throws Exception {
+        api.register("metrics@test.com");
+
+        // the registry is shared by all tests of the context, so only the increase is checked
+        long passwordChecks = timerCount("password.hashing.duration", "operation", "matches");
+        long validTokens = timerCount("security.jwt.verification", "outcome", "valid");
+
+        String accessToken = api.login("metrics@test.com").get("accessToken").asText();
+
+        mockMvc.perform(get("/api/notes")
+                        .header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isOk());
+
+        assertEquals(passwordChecks + 1, timerCount("password.hashing.duration", "operation", "matches"));
+        assertEquals(validTokens + 1, timerCount("security.jwt.verification", "outcome", "valid"));
+        assertTrue(timerCount("spring.data.repository.invocations", "repository", "UserRepository") > 0);
+    }
+
+    private long timerCount(String name, String tagKey, String tagValue) {
+        Timer timer = meterRegistry.find(name).tag(tagKey, tagValue).timer();
+        return timer != null ? timer.count() : 0;
+    }
+}
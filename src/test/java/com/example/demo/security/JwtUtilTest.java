@@ -0,0 +1,82 @@
+package com.example.demo.security;
+
+import com.example.demo.model.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilTest {
+
+    private static final String SECRET = "SecretKeyForTestingMustBeLongEnough1234567890";
+
+    private JwtUtil jwtUtil;
+    private UserDetails userDetails;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil(SECRET, 3600000, 100);
+
+        User user = new User("TestUser", "test@example.com", "encoded_pass");
+        user.setId(1);
+        userDetails = new CustomUserDetailsService.CustomUserDetails(user);
+    }
+
+    @Test
+    void validToken_IsVerifiedOnlyOnce() {
+        String token = jwtUtil.generateToken(userDetails);
+
+        assertEquals("test@example.com", jwtUtil.extractUsername(token));
+        assertTrue(jwtUtil.isValidToken(token, userDetails));
+
+        // first call parses the token, the rest are served from the cache
+        assertEquals(1, jwtUtil.getCacheStats().missCount());
+        assertEquals(1, jwtUtil.getCacheStats().hitCount());
+    }
+
+    @Test
+    void checksOnClaims_ShouldNotLookUpTheTokenAgain() {
+        Claims claims = jwtUtil.extractClaims(jwtUtil.generateToken(userDetails));
+
+        assertTrue(jwtUtil.isValidToken(claims, userDetails));
+        assertEquals(1, jwtUtil.extractUserDetails(claims).getId());
+
+        assertEquals(1, jwtUtil.getCacheStats().missCount());
+        assertEquals(0, jwtUtil.getCacheStats().hitCount());
+    }
+
+    @Test
+    void tamperedToken_ShouldThrowAndNotBeCached() {
+        String token = jwtUtil.generateToken(userDetails);
+        String tampered = token.substring(0, token.length() - 2) + "xx";
+
+        assertThrows(JwtException.class, () -> jwtUtil.extractUsername(tampered));
+        assertThrows(JwtException.class, () -> jwtUtil.extractUsername(tampered));
+        assertEquals(0, jwtUtil.getCacheStats().hitCount());
+    }
+
+    @Test
+    void tokenSignedWithOtherKey_ShouldBeRejected() {
+        JwtUtil otherIssuer = new JwtUtil("AnotherSecretKeyForTestingMustBeLongEnough12", 3600000, 100);
+        String foreignToken = otherIssuer.generateToken(userDetails);
+
+        assertThrows(JwtException.class, () -> jwtUtil.extractUsername(foreignToken));
+    }
+
+    @Test
+    void extractUserDetails_ShouldRebuildPrincipalFromClaims() {
+        String token = jwtUtil.generateToken(userDetails);
+
+        CustomUserDetailsService.CustomUserDetails principal = jwtUtil.extractUserDetails(token);
+
+        assertNotNull(principal);
+        assertEquals(1, principal.getId());
+        assertEquals("test@example.com", principal.getUsername());
+        assertNull(principal.getPassword()); // password hash never travels in the token
+        assertEquals(userDetails.getAuthorities().iterator().next().getAuthority(),
+                principal.getAuthorities().iterator().next().getAuthority());
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.demo.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordEncodersTest {
+
+    private static final String PASSWORD = "password123";
+
+    @Test
+    void newHashes_ShouldBePrefixedWithTargetAlgorithm() {
+        PasswordEncoder encoder = PasswordEncoders.delegating("bcrypt", 4);
+
+        String hash = encoder.encode(PASSWORD);
+
+        assertTrue(hash.startsWith("{bcrypt}$2a$04$"));
+        assertTrue(encoder.matches(PASSWORD, hash));
+        assertFalse(encoder.upgradeEncoding(hash));
+    }
+
+    @Test
+    void legacyUnprefixedBcrypt_ShouldMatchAndBeUpgraded() {
+        String legacy = new BCryptPasswordEncoder(4).encode(PASSWORD);
+        PasswordEncoder encoder = PasswordEncoders.delegating("bcrypt", 4);
+
+        assertTrue(encoder.matches(PASSWORD, legacy));
+        assertTrue(encoder.upgradeEncoding(legacy));
+    }
+
+    @Test
+    void lowerBcryptCost_ShouldBeUpgraded() {
+        String weak = PasswordEncoders.delegating("bcrypt", 4).encode(PASSWORD);
+        PasswordEncoder encoder = PasswordEncoders.delegating("bcrypt", 5);
+
+        assertTrue(encoder.matches(PASSWORD, weak));
+        assertTrue(encoder.upgradeEncoding(weak));
+    }
+
+    @Test
+    void switchingAlgorithm_ShouldKeepOldHashesValid() {
+        String bcrypt = PasswordEncoders.delegating("bcrypt", 4).encode(PASSWORD);
+        PasswordEncoder encoder = PasswordEncoders.delegating("argon2", 1024);
+
+        assertTrue(encoder.matches(PASSWORD, bcrypt));
+        assertTrue(encoder.upgradeEncoding(bcrypt));
+
+        String argon2 = encoder.encode(PASSWORD);
+        assertTrue(argon2.startsWith("{argon2}"));
+        assertTrue(encoder.matches(PASSWORD, argon2));
+        assertFalse(encoder.upgradeEncoding(argon2));
+    }
+
+    @Test
+    void legacyPbkdf2_ShouldVerifyWithConfiguredIterations() {
+        PasswordEncoders.Settings settings = new PasswordEncoders.Settings(4, 1024, 1, 1000);
+        String pbkdf2 = PasswordEncoders.delegating("pbkdf2", settings).encode(PASSWORD);
+        PasswordEncoder encoder = PasswordEncoders.delegating("bcrypt", settings);
+
+        assertTrue(encoder.matches(PASSWORD, pbkdf2));
+        assertTrue(encoder.upgradeEncoding(pbkdf2));
+        // the count is not in the hash, a verifier with another count rejects it
+        assertFalse(PasswordEncoders.delegating("bcrypt", 4).matches(PASSWORD, pbkdf2));
+    }
+
+    @Test
+    void settings_ShouldApplyToTheirOwnAlgorithmOnly() {
+        PasswordEncoders.Settings settings = new PasswordEncoders.Settings(4, 1024, 1, 1000);
+
+        assertTrue(PasswordEncoders.delegating("bcrypt", settings).encode(PASSWORD).startsWith("{bcrypt}$2a$04$"));
+        assertTrue(PasswordEncoders.delegating("argon2", settings).encode(PASSWORD).contains("$m=1024,t=1,p=1$"));
+        assertEquals(PasswordEncoders.Settings.defaults().withCost("argon2", 1024),
+                new PasswordEncoders.Settings(12, 1024, 2, 310000));
+    }
+
+    @Test
+    void unknownAlgorithm_ShouldBeRejected() {
+        assertThrows(IllegalArgumentException.class, () -> PasswordEncoders.delegating("md5", 1));
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.demo.security;
+
+import com.example.demo.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHashingExecutorTest {
+
+    private SimpleMeterRegistry registry;
+    private PasswordHashingExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        // one thread + one queue slot = two calls in flight
+        executor = new PasswordHashingExecutor(1, 1, Duration.ofSeconds(5), registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.destroy();
+    }
+
+    @Test
+    void execute_ShouldReturnResultOfTask() {
+        assertEquals("hash", executor.execute(() -> "hash"));
+    }
+
+    @Test
+    void execute_WhenSaturated_ShouldFailFastWith429() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> executor.execute(() -> await(release)));
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> executor.execute(() -> await(release)));
+
+        waitUntilQueued();
+
+        TooManyRequestsException ex = assertThrows(TooManyRequestsException.class,
+                () -> executor.execute(() -> true));
+        assertEquals(1, ex.getRetryAfterSeconds());
+        assertEquals(1.0, registry.get("password.hashing.rejected").counter().count());
+
+        release.countDown();
+        assertTrue(running.get(5, TimeUnit.SECONDS));
+        assertTrue(queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void execute_WhenTimedOut_ShouldKeepCountingTheRunningHash() throws Exception {
+        executor.destroy();
+        executor = new PasswordHashingExecutor(1, 1, Duration.ofMillis(100), registry);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // like BCrypt, the task does not stop when the timed-out caller cancels it
+        assertThrows(TooManyRequestsException.class, () -> executor.execute(() -> awaitUninterruptibly(release)));
+
+        // the thread is still busy: one call fits into the queue, the next one is rejected
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> executor.execute(() -> true));
+        waitUntilQueued();
+        assertThrows(TooManyRequestsException.class, () -> executor.execute(() -> true));
+
+        release.countDown();
+        // runs or times out depending on when the thread frees up
+        queued.exceptionally(e -> false).get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void execute_ShouldRethrowTaskException() {
+        assertThrows(IllegalArgumentException.class, () -> executor.execute(() -> {
+            throw new IllegalArgumentException("bad hash");
+        }));
+    }
+
+    private void waitUntilQueued() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (executor.getQueueDepth() < 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, executor.getQueueDepth());
+    }
+
+    private static boolean awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return latch.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
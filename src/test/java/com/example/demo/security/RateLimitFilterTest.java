@@ -0,0 +1,70 @@
+package com.example.demo.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitFilterTest {
+
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        // ip: burst 5, credentials: burst 2, both refilling one token per 1000 s
+        filter = new RateLimitFilter(true, 5, 0.001, 2, 0.001, 1000, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void credentialRequests_ShouldBeLimitedPerIp() throws Exception {
+        assertEquals(200, perform("POST", "/api/login", "10.0.0.1").getStatus());
+        assertEquals(200, perform("POST", "/api/login", "10.0.0.1").getStatus());
+
+        MockHttpServletResponse rejected = perform("POST", "/api/login", "10.0.0.1");
+        assertEquals(429, rejected.getStatus());
+        assertTrue(Long.parseLong(rejected.getHeader("Retry-After")) > 0);
+
+        // other clients and other endpoints are not affected
+        assertEquals(200, perform("POST", "/api/login", "10.0.0.2").getStatus());
+        assertEquals(200, perform("GET", "/api/hello", "10.0.0.1").getStatus());
+    }
+
+    @Test
+    void rejectedCredentialRequests_ShouldNotTakeIpTokens() throws Exception {
+        assertEquals(200, perform("POST", "/api/login", "10.0.1.1").getStatus());
+        assertEquals(200, perform("POST", "/api/login", "10.0.1.1").getStatus());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(429, perform("POST", "/api/login", "10.0.1.1").getStatus());
+        }
+
+        // the two accepted logins took two of the five ip tokens, the rejected ones none
+        for (int i = 0; i < 3; i++) {
+            assertEquals(200, perform("GET", "/api/hello", "10.0.1.1").getStatus());
+        }
+        assertEquals(429, perform("GET", "/api/hello", "10.0.1.1").getStatus());
+    }
+
+    @Test
+    void evictIdle_ShouldKeepBucketsThatAreNotFull() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            perform("GET", "/api/hello", "10.0.2.1");
+        }
+
+        filter.evictIdle();
+
+        // the drained bucket survived the sweep
+        assertEquals(429, perform("GET", "/api/hello", "10.0.2.1").getStatus());
+    }
+
+    private MockHttpServletResponse perform(String method, String path, String clientIp) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.setRemoteAddr(clientIp);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.demo.security;
+
+import com.example.demo.model.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenRevocationListTest {
+
+    private static final String SECRET = "SecretKeyForTestingMustBeLongEnough1234567890";
+
+    private JwtUtil jwtUtil;
+    private TokenRevocationList revocationList;
+    private CustomUserDetailsService.CustomUserDetails userDetails;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil(SECRET, 3600000, 100);
+        // 1 ms buckets, so expired ids can be swept right away
+        revocationList = new TokenRevocationList(1000, 3600000, Duration.ofMillis(1), new SimpleMeterRegistry());
+
+        User user = new User("TestUser", "test@example.com", "encoded_pass");
+        user.setId(1);
+        userDetails = new CustomUserDetailsService.CustomUserDetails(user);
+    }
+
+    @Test
+    void revoke_ShouldRevokeOnlyThatToken() {
+        Claims revoked = jwtUtil.extractClaims(jwtUtil.generateToken(userDetails));
+        Claims other = jwtUtil.extractClaims(jwtUtil.generateToken(userDetails));
+
+        revocationList.revoke(revoked);
+
+        assertTrue(revocationList.isRevoked(revoked));
+        assertFalse(revocationList.isRevoked(other));
+    }
+
+    @Test
+    void revokeUser_ShouldRevokeTokensIssuedBefore() {
+        Claims issued = jwtUtil.extractClaims(jwtUtil.generateToken(userDetails));
+
+        revocationList.revokeUser(1);
+
+        assertTrue(revocationList.isRevoked(issued));
+        assertFalse(revocationList.isRevoked(Jwts.claims().id("x").add("uid", 2).build()));
+    }
+
+    @Test
+    void revokeUser_ShouldKeepTokensIssuedAfterwardsInTheSameSecond() throws Exception {
+        revocationList.revokeUser(1);
+        Thread.sleep(2);
+
+        Claims issued = jwtUtil.extractClaims(jwtUtil.generateToken(userDetails));
+
+        assertFalse(revocationList.isRevoked(issued));
+    }
+
+    @Test
+    void revokeUser_TokenWithoutMillis_ShouldBeRevokedWithinItsSecond() {
+        // issued before iat_ms existed: only the second is known
+        Claims issued = Jwts.claims().add("uid", 1).issuedAt(new Date()).build();
+
+        revocationList.revokeUser(1);
+
+        assertTrue(revocationList.isRevoked(issued));
+    }
+
+    @Test
+    void evictExpired_ShouldDropExpiredIdsAndKeepLiveOnes() throws Exception {
+        long now = System.currentTimeMillis();
+        revocationList.revoke("expiring", now + 5);
+        revocationList.revoke("live", now + 3600000);
+
+        Thread.sleep(20);
+        revocationList.evictExpired();
+
+        assertEquals(1, revocationList.size());
+        // still found after the filter was rebuilt
+        assertTrue(revocationList.isRevoked(Jwts.claims().id("live").build()));
+        assertFalse(revocationList.isRevoked(Jwts.claims().id("expiring").build()));
+    }
+}
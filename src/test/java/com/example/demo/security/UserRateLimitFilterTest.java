@@ -0,0 +1,68 @@
+package com.example.demo.security;
+
+import com.example.demo.model.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserRateLimitFilterTest {
+
+    private UserRateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        // user: burst 3, refilling one token per 1000 s
+        filter = new UserRateLimitFilter(true, 3, 0.001, 1000, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void authenticatedRequests_ShouldBeLimitedPerUser() throws Exception {
+        authenticate(1);
+        for (int i = 0; i < 3; i++) {
+            // a different address each time, the user bucket still applies
+            assertEquals(200, perform("10.0.1." + i).getStatus());
+        }
+        MockHttpServletResponse rejected = perform("10.0.1.9");
+        assertEquals(429, rejected.getStatus());
+        assertTrue(Long.parseLong(rejected.getHeader("Retry-After")) > 0);
+
+        authenticate(2);
+        assertEquals(200, perform("10.0.1.9").getStatus());
+    }
+
+    @Test
+    void anonymousRequests_ShouldPassThrough() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            assertEquals(200, perform("10.0.2.1").getStatus());
+        }
+    }
+
+    private MockHttpServletResponse perform(String clientIp) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/notes");
+        request.setRemoteAddr(clientIp);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private void authenticate(int userId) {
+        User user = new User("User" + userId, "user" + userId + "@example.com", "encoded_pass");
+        user.setId(userId);
+        CustomUserDetailsService.CustomUserDetails details = new CustomUserDetailsService.CustomUserDetails(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(details, null, details.getAuthorities()));
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.NoteEvent;
+import com.example.demo.dto.NoteResponse;
+import com.example.demo.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NoteEventBusTest {
+
+    private SimpleMeterRegistry registry;
+    private NoteEventBus bus;
+    private final List<RecordingEmitter> emitters = new CopyOnWriteArrayList<>();
+    // first send blocks until released, simulates a slow client
+    private volatile CountDownLatch release;
+    private final CountDownLatch sending = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        // buffer of 2 events, 2 streams per user, one dispatcher thread, no heartbeats during the test
+        bus = new NoteEventBus(2, 100, 2, Duration.ofMinutes(1), Duration.ofHours(1), 1, registry) {
+            @Override
+            SseEmitter createEmitter(long timeout) {
+                RecordingEmitter emitter = new RecordingEmitter();
+                emitters.add(emitter);
+                return emitter;
+            }
+        };
+    }
+
+    @AfterEach
+    void tearDown() {
+        bus.destroy();
+    }
+
+    @Test
+    void publish_ShouldReachAllStreamsOfTheUserOnly() throws Exception {
+        bus.subscribe(1);
+        bus.subscribe(1);
+        bus.subscribe(2);
+
+        bus.publish(1, NoteEvent.created(new NoteResponse(10L, "Hello", 1)));
+
+        waitUntil(() -> emitters.get(0).sent.size() == 1 && emitters.get(1).sent.size() == 1);
+        assertTrue(emitters.get(0).sent.get(0).contains("event:created"));
+        assertTrue(emitters.get(1).sent.get(0).contains("content=Hello"));
+        assertTrue(emitters.get(2).sent.isEmpty());
+    }
+
+    @Test
+    void publish_WhenClientFallsBehind_ShouldCloseStreamWithResync() throws Exception {
+        release = new CountDownLatch(1);
+        bus.subscribe(1);
+
+        bus.publish(1, NoteEvent.deleted(1L));
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+        // dispatcher is stuck on the first event, two fill the buffer, the third overflows it
+        for (long id = 2; id <= 4; id++) {
+            bus.publish(1, NoteEvent.deleted(id));
+        }
+        release.countDown();
+
+        RecordingEmitter emitter = emitters.get(0);
+        waitUntil(() -> emitter.completed);
+        assertTrue(emitter.sent.get(emitter.sent.size() - 1).contains("event:" + NoteEventBus.RESYNC));
+        assertEquals(0, bus.getConnectionCount());
+        assertEquals(1.0, registry.get("notes.stream.overflows").counter().count());
+    }
+
+    @Test
+    void publish_BatchLargerThanBuffer_ShouldTakeOneSlot() throws Exception {
+        bus.subscribe(1);
+
+        // five events, buffer of two: still one write
+        bus.publish(1, List.of(NoteEvent.deleted(1L), NoteEvent.deleted(2L), NoteEvent.deleted(3L),
+                NoteEvent.deleted(4L), NoteEvent.deleted(5L)));
+
+        RecordingEmitter emitter = emitters.get(0);
+        waitUntil(() -> emitter.sent.size() == 5);
+        assertFalse(emitter.completed);
+        assertEquals(0.0, registry.get("notes.stream.overflows").counter().count());
+    }
+
+    @Test
+    void subscribe_OverPerUserLimit_ShouldRejectWith429() {
+        bus.subscribe(1);
+        bus.subscribe(1);
+
+        assertThrows(TooManyRequestsException.class, () -> bus.subscribe(1));
+        assertEquals(2, bus.getConnectionCount());
+    }
+
+    @Test
+    void disconnect_ShouldCloseAllStreamsOfTheUserOnly() throws Exception {
+        bus.subscribe(1);
+        bus.subscribe(1);
+        bus.subscribe(2);
+
+        bus.disconnect(1);
+        bus.publish(1, NoteEvent.deleted(1L));
+        bus.publish(2, NoteEvent.deleted(2L));
+
+        assertTrue(emitters.get(0).completed);
+        assertTrue(emitters.get(1).completed);
+        assertFalse(emitters.get(2).completed);
+        assertEquals(1, bus.getConnectionCount());
+        waitUntil(() -> emitters.get(2).sent.size() == 1);
+        assertTrue(emitters.get(0).sent.isEmpty());
+        assertTrue(emitters.get(1).sent.isEmpty());
+        // the user may open new streams right away
+        bus.subscribe(1);
+        assertEquals(2, bus.getConnectionCount());
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met within 5s");
+            Thread.sleep(10);
+        }
+    }
+
+    private class RecordingEmitter extends SseEmitter {
+
+        private final List<String> sent = new CopyOnWriteArrayList<>();
+        private volatile boolean completed;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            String text = builder.build().stream()
+                    .map(part -> part.getData() instanceof NoteEvent event
+                            ? "content=" + event.getContent()
+                            : String.valueOf(part.getData()))
+                    .collect(Collectors.joining());
+            // comments (connect, heartbeats) are not events
+            if (text.startsWith(":")) {
+                return;
+            }
+            sending.countDown();
+            CountDownLatch latch = release;
+            if (latch != null) {
+                try {
+                    latch.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            sent.add(text);
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.NoteChangesResponse;
+import com.example.demo.dto.NoteResponse;
+import com.example.demo.model.BlockIdGenerator;
+import com.example.demo.model.Note;
+import com.example.demo.model.User;
+import com.example.demo.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class NoteIdReuseTest {
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void deletedNoteIds_ShouldNotBeReusedAfterRestart() {
+        Integer userId = userRepository.save(new User("ReuseUser", "reuse@test.com", "encoded_pass")).getId();
+
+        // the deleted note is the highest id in the notes table
+        Long firstId = noteService.createNote(userId, "first").getId();
+        assertTrue(noteService.deleteNote(firstId, userId));
+        entityManager.flush();
+
+        // restart: the generator forgets its in-memory block and reseeds from the database
+        reseedGenerator();
+
+        NoteResponse recreated = noteService.createNote(userId, "second");
+        assertTrue(recreated.getId() > firstId);
+        // a second tombstone for the user, not a primary key conflict with the first one
+        assertTrue(noteService.deleteNote(recreated.getId(), userId));
+        entityManager.flush();
+
+        NoteChangesResponse changes = noteService.getChanges(userId, 0);
+        assertTrue(changes.getChanged().isEmpty());
+        assertEquals(List.of(firstId, recreated.getId()), changes.getDeleted().stream().sorted().toList());
+    }
+
+    private void reseedGenerator() {
+        Object generator = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactoryImplementor.class)
+                .getMappingMetamodel()
+                .getEntityDescriptor(Note.class)
+                .getGenerator();
+        assertInstanceOf(BlockIdGenerator.class, generator);
+        ReflectionTestUtils.setField(generator, "nextId", 1L);
+        ReflectionTestUtils.setField(generator, "blockEnd", 0L);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.demo.service;
+
+import com.example.demo.exception.ForbiddenException;
+import com.example.demo.model.Note;
+import com.example.demo.model.User;
+import com.example.demo.repository.NoteRepository;
+import com.example.demo.repository.NoteTombstoneRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.security.AuditLog;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NoteServiceTest {
+
+    @Mock
+    private NoteRepository noteRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private NoteTombstoneRepository tombstoneRepository;
+
+    @Mock
+    private WriteQueue writeQueue;
+
+    @Mock
+    private AuditLog auditLog;
+
+    private NoteService noteService;
+
+    @BeforeEach
+    void setUp() {
+        noteService = new NoteService(noteRepository, userRepository, tombstoneRepository,
+                new ObjectMapper(), writeQueue, auditLog);
+        ReflectionTestUtils.setField(noteService, "maxBatchSize", 500);
+    }
+
+    @Test
+    void deleteNotes_WhenGroupIsRetried_ShouldAuditTheDenialOnce() {
+        User owner = new User("Owner", "owner@test.com", "secret");
+        owner.setId(2);
+        Note foreign = new Note("Not mine", owner);
+        ReflectionTestUtils.setField(foreign, "id", 7L);
+        when(noteRepository.findAllById(Set.of(7L))).thenReturn(List.of(foreign));
+
+        // the unit runs in a group that is rolled back, then alone, as WriteQueue does after a failed group
+        when(writeQueue.submit(any())).thenAnswer(invocation -> {
+            Supplier<?> unit = invocation.getArgument(0);
+            try {
+                unit.get();
+            } catch (RuntimeException groupFailure) {
+                // rolled back, retried below
+            }
+            return unit.get();
+        });
+
+        assertThrows(ForbiddenException.class, () -> noteService.deleteNotes(1, List.of(7L)));
+
+        verify(noteRepository, times(2)).findAllById(Set.of(7L));
+        verify(auditLog).batchAccessDenied(1, List.of(7L));
+        verifyNoMoreInteractions(auditLog);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.demo.service;
+
+import com.example.demo.model.RefreshToken;
+import com.example.demo.model.User;
+import com.example.demo.repository.RefreshTokenRepository;
+import com.example.demo.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@Transactional
+// small batches, so one purge needs several of them
+@TestPropertySource(properties = "app.refresh-tokens.purge-batch-size=2")
+class RefreshTokenServiceTest {
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void purgeExpired_ShouldDeleteExpiredTokensInBatchesAndKeepLiveOnes() {
+        User user = userRepository.save(new User("PurgeUser", "purge@test.com", "encoded_pass"));
+        Instant now = Instant.now();
+        for (int i = 0; i < 5; i++) {
+            saveToken(user, "expired-" + i, now.minus(Duration.ofMinutes(i + 1)));
+        }
+        saveToken(user, "live", now.plus(Duration.ofHours(1)));
+
+        int purged = refreshTokenService.purgeExpired();
+
+        assertEquals(5, purged);
+        List<RefreshToken> left = refreshTokenRepository.findAll();
+        assertEquals(1, left.size());
+        assertEquals("live", left.get(0).getTokenHash());
+
+        // nothing left to purge
+        assertEquals(0, refreshTokenService.purgeExpired());
+    }
+
+    @Test
+    void issueRefreshToken_ShouldReplaceThePreviousTokenOfTheUser() {
+        User user = userRepository.save(new User("ReissueUser", "reissue@test.com", "encoded_pass"));
+
+        refreshTokenService.issueRefreshToken(user.getId(), user.getEmail());
+        // the bulk delete of the first token must not leave it managed in the persistence context
+        String token = refreshTokenService.issueRefreshToken(user.getId(), user.getEmail());
+
+        assertEquals(1, refreshTokenRepository.count());
+        assertEquals(user.getId(), refreshTokenService.rotate(token).getOwner().getUserId());
+    }
+
+    private void saveToken(User user, String tokenHash, Instant expiryDate) {
+        RefreshToken token = new RefreshToken();
+        token.setUser(user);
+        token.setTokenHash(tokenHash);
+        token.setExpiryDate(expiryDate);
+        refreshTokenRepository.save(token);
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.demo.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteQueueTest {
+
+    private CountingTransactionManager transactionManager;
+    private SimpleMeterRegistry registry;
+    private WriteQueue writeQueue;
+    private ExecutorService callers;
+
+    @BeforeEach
+    void setUp() {
+        transactionManager = new CountingTransactionManager();
+        registry = new SimpleMeterRegistry();
+        writeQueue = new WriteQueue(transactionManager, true, 64, 100, Duration.ofSeconds(5), registry);
+        callers = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        writeQueue.destroy();
+        callers.shutdownNow();
+    }
+
+    @Test
+    void submit_ShouldCommitQueuedUnitsInOneTransaction() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Integer> blocker = blockWriter(release);
+
+        // queued while the writer is busy with the blocker, committed together afterwards
+        List<CompletableFuture<Integer>> queued = IntStream.range(0, 5)
+                .mapToObj(i -> submitAsync(() -> i))
+                .toList();
+        waitUntilQueued(5);
+        release.countDown();
+
+        assertEquals(-1, blocker.get(5, TimeUnit.SECONDS));
+        for (int i = 0; i < queued.size(); i++) {
+            assertEquals(i, queued.get(i).get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(2, transactionManager.commits.get());
+        assertEquals(0, transactionManager.rollbacks.get());
+        assertEquals(5.0, registry.get("notes.write.group.size").summary().max());
+    }
+
+    @Test
+    void submit_WhenOneUnitFails_ShouldRetryTheOthersAlone() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Integer> blocker = blockWriter(release);
+
+        AtomicInteger firstRuns = new AtomicInteger();
+        AtomicInteger lastRuns = new AtomicInteger();
+        CompletableFuture<Integer> first = submitAsync(() -> firstRuns.incrementAndGet());
+        waitUntilQueued(1);
+        CompletableFuture<Integer> failing = submitAsync(() -> {
+            throw new IllegalArgumentException("bad write");
+        });
+        waitUntilQueued(2);
+        CompletableFuture<Integer> last = submitAsync(() -> lastRuns.incrementAndGet());
+        waitUntilQueued(3);
+        release.countDown();
+
+        blocker.get(5, TimeUnit.SECONDS);
+        // the group ran once and was rolled back, then every unit ran alone
+        assertEquals(2, first.get(5, TimeUnit.SECONDS));
+        assertEquals(1, last.get(5, TimeUnit.SECONDS));
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> failing.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalArgumentException.class, failure.getCause());
+
+        // blocker + the two retried units committed; the group and the failing retry rolled back
+        assertEquals(3, transactionManager.commits.get());
+        assertEquals(2, transactionManager.rollbacks.get());
+    }
+
+    @Test
+    void destroy_ShouldFailUnitsStillQueued() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Integer> blocker = blockWriter(release);
+        AtomicInteger runs = new AtomicInteger();
+        CompletableFuture<Integer> queued = submitAsync(() -> runs.incrementAndGet());
+        waitUntilQueued(1);
+
+        // interrupts the blocker, the queued unit is never executed
+        writeQueue.destroy();
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> queued.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, failure.getCause());
+        assertEquals(0, runs.get());
+        assertEquals(-2, blocker.get(5, TimeUnit.SECONDS));
+        assertThrows(IllegalStateException.class, () -> writeQueue.submit(() -> 1));
+    }
+
+    // a unit that keeps the writer busy until released
+    private CompletableFuture<Integer> blockWriter(CountDownLatch release) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<Integer> blocker = submitAsync(() -> {
+            started.countDown();
+            return await(release);
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        return blocker;
+    }
+
+    private CompletableFuture<Integer> submitAsync(Supplier<Integer> work) {
+        return CompletableFuture.supplyAsync(() -> writeQueue.submit(work), callers);
+    }
+
+    // waits until the writer took everything but the given number of units
+    private void waitUntilQueued(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (queueSize() != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, queueSize());
+    }
+
+    private int queueSize() {
+        return (int) registry.get("notes.write.queue.size").gauge().value();
+    }
+
+    // -1 once released, -2 when the writer was interrupted
+    private static int await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+            return -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -2;
+        }
+    }
+
+    // counts transactions, each unit's work stands in for the database writes
+    private static class CountingTransactionManager implements PlatformTransactionManager {
+
+        private final AtomicInteger commits = new AtomicInteger();
+        private final AtomicInteger rollbacks = new AtomicInteger();
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+            commits.incrementAndGet();
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+            rollbacks.incrementAndGet();
+        }
+    }
+}